@@ -0,0 +1,258 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.Material;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/** A head as parsed from its file, before exclusions and overrides are applied. */
+record ParsedHead(HeadDef def, boolean override) {}
+
+/** Every head parsed from one file, with the SHA-256 of the bytes it was parsed from. */
+record ParsedFile(String hash, List<ParsedHead> heads) {}
+
+/**
+ * On-disk copy of the parsed head files so a restart can skip YAML parsing, texture decoding and
+ * recipe construction for files whose hash hasn't changed. The file is tied to the plugin and
+ * server version (material names must resolve the same way); anything else is thrown away.
+ * Exclusions, overrides and indexes depend on the config and are rebuilt from the cached heads.
+ */
+final class CatalogCache {
+    private static final int MAGIC = 0x48534331; // "HSC1"
+    private static final int FORMAT_VERSION = 2;
+
+    private CatalogCache() {}
+
+    /** Read the cache, or return an empty map if it is missing, stale or unreadable. */
+    static Map<String, ParsedFile> read(Path file, String buildKey, CatalogInterner interner) throws IOException {
+        // A heap copy rather than a mapping: a live mapping would keep the file from being
+        // replaced by the next write on Windows
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return Map.of();
+        }
+
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) return Map.of();
+            if (!buildKey.equals(readString(buf))) return Map.of();
+
+            int fileCount = buf.getInt();
+            Map<String, ParsedFile> files = new HashMap<>();
+            for (int f = 0; f < fileCount; f++) {
+                String fileTag = readString(buf);
+                String hash = readString(buf);
+                int headCount = buf.getInt();
+                List<ParsedHead> heads = new ArrayList<>(headCount);
+                for (int i = 0; i < headCount; i++) {
+                    boolean override = buf.get() != 0;
+                    heads.add(new ParsedHead(readHead(buf, interner), override));
+                }
+                files.put(fileTag, new ParsedFile(hash, heads));
+            }
+            return files;
+        } catch (RuntimeException e) {
+            // Truncated or garbled file, or a name this server no longer knows
+            throw new IOException("corrupt catalog cache", e);
+        }
+    }
+
+    static void write(Path file, String buildKey, Map<String, ParsedFile> files) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, buildKey);
+            out.writeInt(files.size());
+            for (Map.Entry<String, ParsedFile> e : files.entrySet()) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue().hash());
+                out.writeInt(e.getValue().heads().size());
+                for (ParsedHead head : e.getValue().heads()) {
+                    out.writeByte(head.override() ? 1 : 0);
+                    writeHead(out, head.def());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Heads
+
+    private static void writeHead(DataOutputStream out, HeadDef def) throws IOException {
+        writeString(out, def.id());
+        writeString(out, def.textureUrl());
+        writeNullableString(out, def.texture().originalBase64());
+        writeString(out, def.name());
+        writeStrings(out, def.lore());
+        writeStrings(out, new ArrayList<>(def.tags()));
+        out.writeInt(def.properties().size());
+        for (HeadProperty p : def.properties()) writeString(out, p.name());
+
+        out.writeInt(def.shaped().size());
+        for (CraftShapedRecipeDef r : def.shaped()) {
+            writeString(out, r.id);
+            out.writeInt(r.amount);
+            writeStrings(out, r.pattern);
+            out.writeInt(r.key.size());
+            for (Map.Entry<Character, IngredientSpec> e : r.key.entrySet()) {
+                out.writeChar(e.getKey());
+                writeIngredient(out, e.getValue());
+            }
+        }
+        out.writeInt(def.shapeless().size());
+        for (CraftShapelessRecipeDef r : def.shapeless()) {
+            writeString(out, r.id);
+            out.writeInt(r.amount);
+            out.writeInt(r.ingredients.size());
+            for (IngredientSpec spec : r.ingredients) writeIngredient(out, spec);
+        }
+        out.writeInt(def.stonecutter().size());
+        for (StonecutterRecipeDef r : def.stonecutter()) {
+            writeString(out, r.id());
+            out.writeInt(r.amount());
+            writeIngredient(out, r.input());
+        }
+
+        out.writeInt(def.dropRules().size());
+        for (DropRule rule : def.dropRules()) {
+            out.writeByte(rule.matchesSilkTouch().map(b -> b ? 1 : 0).orElse(-1));
+            out.writeByte(rule.matchesTool().map(Enum::ordinal).orElse(-1));
+            out.writeInt(rule.drops().size());
+            for (ItemSpec spec : rule.drops()) {
+                writeNullableString(out, spec.headId().orElse(null));
+                writeNullableString(out, spec.material().map(Material::name).orElse(null));
+                out.writeInt(spec.amount());
+            }
+        }
+    }
+
+    private static HeadDef readHead(ByteBuffer buf, CatalogInterner interner) {
+        String id = readString(buf);
+        TextureRef texture = TextureRef.ofUrl(readString(buf))
+            .orElseThrow(() -> new IllegalArgumentException("bad texture for " + id))
+            .withBase64(readNullableString(buf));
+        String name = readString(buf);
+        List<String> lore = interner.lore(readStrings(buf));
+        Set<String> tags = interner.tags(new LinkedHashSet<>(readStrings(buf)));
+        Set<HeadProperty> properties = EnumSet.noneOf(HeadProperty.class);
+        for (int i = buf.getInt(); i > 0; i--) properties.add(HeadProperty.valueOf(readString(buf)));
+
+        List<CraftShapedRecipeDef> shaped = new ArrayList<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            String recipeId = readString(buf);
+            int amount = buf.getInt();
+            List<String> pattern = readStrings(buf);
+            Map<Character, IngredientSpec> key = new HashMap<>();
+            for (int k = buf.getInt(); k > 0; k--) {
+                key.put(buf.getChar(), readIngredient(buf, interner));
+            }
+            shaped.add(new CraftShapedRecipeDef(recipeId, id, amount, pattern, key));
+        }
+        List<CraftShapelessRecipeDef> shapeless = new ArrayList<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            String recipeId = readString(buf);
+            int amount = buf.getInt();
+            List<IngredientSpec> ingredients = new ArrayList<>();
+            for (int k = buf.getInt(); k > 0; k--) ingredients.add(readIngredient(buf, interner));
+            shapeless.add(new CraftShapelessRecipeDef(recipeId, id, amount, ingredients));
+        }
+        List<StonecutterRecipeDef> stonecutter = new ArrayList<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            String recipeId = readString(buf);
+            int amount = buf.getInt();
+            stonecutter.add(new StonecutterRecipeDef(recipeId, id, amount, readIngredient(buf, interner)));
+        }
+
+        List<DropRule> dropRules = new ArrayList<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            byte silk = buf.get();
+            byte tool = buf.get();
+            List<ItemSpec> drops = new ArrayList<>();
+            for (int k = buf.getInt(); k > 0; k--) {
+                String headId = readNullableString(buf);
+                String material = readNullableString(buf);
+                drops.add(new ItemSpec(Optional.ofNullable(headId),
+                    Optional.ofNullable(material).map(CatalogCache::material), buf.getInt()));
+            }
+            dropRules.add(new DropRule(
+                silk < 0 ? Optional.empty() : Optional.of(silk == 1),
+                tool < 0 ? Optional.empty() : Optional.of(ToolCategory.byOrdinal(tool)),
+                drops));
+        }
+
+        return new HeadDef(id, texture, name, lore, tags, properties,
+            shaped, shapeless, stonecutter, dropRules);
+    }
+
+    private static void writeIngredient(DataOutputStream out, IngredientSpec spec) throws IOException {
+        writeNullableString(out, spec.material != null ? spec.material.name() : null);
+        writeNullableString(out, spec.headId);
+    }
+
+    private static IngredientSpec readIngredient(ByteBuffer buf, CatalogInterner interner) {
+        String material = readNullableString(buf);
+        String headId = readNullableString(buf);
+        return interner.ingredient(new IngredientSpec(
+            material != null ? material(material) : null, headId));
+    }
+
+    /** Throws for a name this server doesn't know, so the whole cache is discarded. */
+    private static Material material(String name) {
+        Material material = Material.getMaterial(name);
+        if (material == null) throw new IllegalStateException("unknown material " + name);
+        return material;
+    }
+
+    // Primitives
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) writeString(out, s);
+    }
+
+    private static String readNullableString(ByteBuffer buf) {
+        return buf.get() != 0 ? readString(buf) : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String s : list) writeString(out, s);
+    }
+
+    private static List<String> readStrings(ByteBuffer buf) {
+        int n = buf.getInt();
+        List<String> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(readString(buf));
+        return list;
+    }
+}
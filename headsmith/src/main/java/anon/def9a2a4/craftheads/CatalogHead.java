@@ -0,0 +1,61 @@
+package anon.def9a2a4.headsmith;
+
+import net.kyori.adventure.text.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One head in the {@link HeadCatalog}. Immutable.
+ */
+public final class CatalogHead {
+    private final HeadDef def;
+    private final Set<String> tags;
+    private final Set<String> properties;
+
+    CatalogHead(HeadDef def, Set<String> properties) {
+        this.def = def;
+        // A plain copy, so API users never touch the catalog's interned tag table
+        this.tags = Collections.unmodifiableSet(new LinkedHashSet<>(def.tags()));
+        this.properties = properties;
+    }
+
+    public String id() { return def.id(); }
+
+    /** Display name with {@code &} color codes. */
+    public String name() { return def.name(); }
+
+    /** Lore lines with {@code &} color codes. */
+    public List<String> lore() { return def.lore(); }
+
+    /** The name as shown on the item. */
+    public Component displayName() { return def.text().name(); }
+
+    /** The lore as shown on the item. */
+    public List<Component> displayLore() { return def.text().lore(); }
+
+    /** The name without colors. */
+    public String plainName() { return def.plainName(); }
+
+    /** Tags in the order the head was given them; the first is the file it came from. */
+    public Set<String> tags() { return tags; }
+
+    /** Property names such as {@code LIGHTABLE} or {@code GLOWING}. */
+    public Set<String> properties() { return properties; }
+
+    public String textureId() { return def.textureId(); }
+
+    public String textureUrl() { return def.textureUrl(); }
+
+    /** The base64 texture value as it appears in head files. */
+    public String textureBase64() { return def.textureBase64(); }
+
+    HeadDef def() { return def; }
+
+    @Override
+    public String toString() {
+        return "CatalogHead[" + def.id() + "]";
+    }
+}
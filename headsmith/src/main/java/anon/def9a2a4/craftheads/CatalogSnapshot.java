@@ -0,0 +1,127 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable copy of the catalog's lookup structures, built once per catalog swap and handed to
+ * other plugins. Head definitions are shared with the live catalog, only the maps are copied.
+ */
+final class CatalogSnapshot implements HeadCatalog {
+    private final Map<String, CatalogHead> byId;
+    private final Map<TextureRef, String> headIdByTexture;
+    private final Map<String, List<CatalogHead>> byTag;
+    private final CatalogHead[] heads; // by HeadIndex ordinal
+    private final HeadIndex index;
+    private final NamespacedKey pdcHeadIdKey;
+    private final BiFunction<HeadDef, Integer, ItemStack> headItemMaker;
+
+    CatalogSnapshot(HeadIndex index, Map<TextureRef, String> headIdByTexture,
+                    NamespacedKey pdcHeadIdKey, BiFunction<HeadDef, Integer, ItemStack> headItemMaker) {
+        Map<String, CatalogHead> ids = new LinkedHashMap<>();
+        Map<String, List<CatalogHead>> tags = new HashMap<>();
+        Map<Set<HeadProperty>, Set<String>> propertyNames = new HashMap<>();
+        heads = new CatalogHead[index.size()];
+
+        for (int i = 0; i < heads.length; i++) {
+            HeadDef def = index.head(i);
+            Set<String> props = propertyNames.computeIfAbsent(def.properties(), p -> p.stream()
+                .map(Enum::name).collect(Collectors.toUnmodifiableSet()));
+            CatalogHead head = new CatalogHead(def, props);
+            ids.put(def.id(), head);
+            for (String tag : def.tags()) {
+                tags.computeIfAbsent(tag, t -> new ArrayList<>()).add(head);
+            }
+            heads[i] = head;
+        }
+        tags.replaceAll((tag, list) -> List.copyOf(list));
+
+        this.byId = Collections.unmodifiableMap(ids);
+        this.headIdByTexture = Map.copyOf(headIdByTexture);
+        this.byTag = tags;
+        this.index = index;
+        this.pdcHeadIdKey = pdcHeadIdKey;
+        this.headItemMaker = headItemMaker;
+    }
+
+    @Override
+    public Collection<CatalogHead> all() {
+        return byId.values();
+    }
+
+    @Override
+    public int size() {
+        return heads.length;
+    }
+
+    @Override
+    public Optional<CatalogHead> byId(String headId) {
+        return Optional.ofNullable(byId.get(headId));
+    }
+
+    @Override
+    public Optional<CatalogHead> byTexture(String textureIdOrUrl) {
+        TextureRef ref = TextureRef.ofUrl(textureIdOrUrl).orElseGet(() -> TextureRef.ofId(textureIdOrUrl));
+        String headId = headIdByTexture.get(ref);
+        return headId != null ? byId(headId) : Optional.empty();
+    }
+
+    @Override
+    public Optional<CatalogHead> byItem(ItemStack item) {
+        return HeadUtils.getHeadIdFromItem(item, pdcHeadIdKey, headIdByTexture).flatMap(this::byId);
+    }
+
+    @Override
+    public List<CatalogHead> byTag(String tag) {
+        return byTag.getOrDefault(tag, List.of());
+    }
+
+    @Override
+    public List<CatalogHead> search(String query) {
+        int[] ordinals = HeadQuery.parse(query).ranked(index);
+        List<CatalogHead> out = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            out.add(heads[ordinal]);
+        }
+        return out;
+    }
+
+    @Override
+    public Optional<ItemStack> createItem(String headId, int amount) {
+        // From this snapshot's definition, even if the live catalog has changed or dropped the head
+        CatalogHead head = byId.get(headId);
+        if (head == null) return Optional.empty();
+        return Optional.of(headItemMaker.apply(head.def(), amount));
+    }
+}
+
+/** The service other plugins get: always answers from the current snapshot. */
+final class LiveHeadCatalog implements HeadCatalog {
+    private final Supplier<HeadCatalog> current;
+
+    LiveHeadCatalog(Supplier<HeadCatalog> current) {
+        this.current = current;
+    }
+
+    @Override public Collection<CatalogHead> all() { return current.get().all(); }
+    @Override public int size() { return current.get().size(); }
+    @Override public Optional<CatalogHead> byId(String headId) { return current.get().byId(headId); }
+    @Override public Optional<CatalogHead> byTexture(String textureIdOrUrl) { return current.get().byTexture(textureIdOrUrl); }
+    @Override public Optional<CatalogHead> byItem(ItemStack item) { return current.get().byItem(item); }
+    @Override public List<CatalogHead> byTag(String tag) { return current.get().byTag(tag); }
+    @Override public List<CatalogHead> search(String query) { return current.get().search(query); }
+    @Override public Optional<ItemStack> createItem(String headId, int amount) { return current.get().createItem(headId, amount); }
+}
@@ -0,0 +1,76 @@
+package anon.def9a2a4.headsmith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Prefix lookup for tab completion, built once per catalog load. Keys are lower-cased and
+ * sorted so a completion is a binary search plus a short scan, with no per-keystroke
+ * allocation beyond the result list. Immutable, so it can be read from async tab completion.
+ */
+final class CompletionIndex {
+    static final CompletionIndex EMPTY = new CompletionIndex(new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+
+    private final String[] headIdKeys;    // lower-cased, sorted
+    private final String[] headIds;       // original ids, parallel to headIdKeys
+    private final String[] searchTerms;   // lower-cased name words and tags, sorted
+    private final String[] tagKeys;       // lower-cased, sorted
+    private final String[] tags;          // original tags, parallel to tagKeys
+
+    private CompletionIndex(TreeMap<String, String> headIds, TreeMap<String, String> searchTerms, TreeMap<String, String> tags) {
+        this.headIdKeys = headIds.keySet().toArray(new String[0]);
+        this.headIds = headIds.values().toArray(new String[0]);
+        this.searchTerms = searchTerms.keySet().toArray(new String[0]);
+        this.tagKeys = tags.keySet().toArray(new String[0]);
+        this.tags = tags.values().toArray(new String[0]);
+    }
+
+    static CompletionIndex build(Collection<HeadDef> heads) {
+        TreeMap<String, String> ids = new TreeMap<>();
+        TreeMap<String, String> terms = new TreeMap<>();
+        TreeMap<String, String> tags = new TreeMap<>();
+        for (HeadDef head : heads) {
+            ids.putIfAbsent(head.id().toLowerCase(Locale.ROOT), head.id());
+            String name = head.plainName().toLowerCase(Locale.ROOT);
+            for (String word : name.split("[^\\p{L}\\p{N}_']+")) {
+                if (word.length() > 1) terms.putIfAbsent(word, word);
+            }
+            for (String tag : head.tags()) {
+                String key = tag.toLowerCase(Locale.ROOT);
+                terms.putIfAbsent(key, key);
+                tags.putIfAbsent(key, tag);
+            }
+        }
+        return new CompletionIndex(ids, terms, tags);
+    }
+
+    List<String> headIds(String prefix, int limit) {
+        return matches(headIdKeys, headIds, prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    List<String> tags(String prefix, int limit) {
+        return matches(tagKeys, tags, prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    List<String> searchTerms(String prefix, int limit) {
+        return matches(searchTerms, searchTerms, prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    private static List<String> matches(String[] keys, String[] values, String prefix, int limit) {
+        List<String> out = new ArrayList<>();
+        for (int i = lowerBound(keys, prefix); i < keys.length && out.size() < limit; i++) {
+            if (!keys[i].startsWith(prefix)) break;
+            out.add(values[i]);
+        }
+        return out;
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int i = Arrays.binarySearch(keys, prefix);
+        return i >= 0 ? i : -i - 1; // keys are unique, so an exact hit is the first match
+    }
+}
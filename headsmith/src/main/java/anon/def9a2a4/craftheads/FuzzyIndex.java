@@ -0,0 +1,141 @@
+package anon.def9a2a4.headsmith;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant word lookup over the words in head names, ids and tags.
+ *
+ * <p>This is a deletion dictionary (as in SymSpell): every word is stored under each string that
+ * can be made from it by deleting up to two letters. A misspelled query only has to generate its
+ * own deletions and look them up, so a lookup costs a few dozen hash probes no matter how many
+ * heads are loaded. Candidates are confirmed with an edit distance that counts swapped letters
+ * as one edit, so "candel" finds "candle" and "quarz" finds "quartz".
+ */
+final class FuzzyIndex {
+    static final FuzzyIndex EMPTY = new FuzzyIndex(new String[0][]);
+
+    private static final int MAX_MATCHES = 16;
+
+    record Match(int word, int distance) {}
+
+    private final String[] words;
+    private final BitSet[] headsByWord;
+    private final Map<String, int[]> wordsByDeletion;
+
+    /** @param wordsByHead the lower-cased words of each head, indexed by head ordinal */
+    FuzzyIndex(String[][] wordsByHead) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> vocab = new ArrayList<>();
+        List<BitSet> heads = new ArrayList<>();
+        for (int h = 0; h < wordsByHead.length; h++) {
+            for (String word : wordsByHead[h]) {
+                Integer id = ids.get(word);
+                if (id == null) {
+                    id = vocab.size();
+                    ids.put(word, id);
+                    vocab.add(word);
+                    heads.add(new BitSet(wordsByHead.length));
+                }
+                heads.get(id).set(h);
+            }
+        }
+        words = vocab.toArray(new String[0]);
+        headsByWord = heads.toArray(new BitSet[0]);
+
+        Map<String, List<Integer>> byDeletion = new HashMap<>();
+        for (int id = 0; id < words.length; id++) {
+            // Allow for queries a little longer than the word, which may be given more edits
+            for (String deletion : deletions(words[id], maxDistance(words[id].length() + 2))) {
+                byDeletion.computeIfAbsent(deletion, k -> new ArrayList<>(1)).add(id);
+            }
+        }
+        wordsByDeletion = new HashMap<>(byDeletion.size() * 4 / 3 + 1);
+        byDeletion.forEach((k, v) -> wordsByDeletion.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /** Edits allowed for a word of this length: none for short words, where any edit is a different word. */
+    static int maxDistance(int length) {
+        if (length < 4) return 0;
+        return length < 8 ? 1 : 2;
+    }
+
+    /** The closest known words to the query, nearest first, at most {@value #MAX_MATCHES}. */
+    List<Match> lookup(String query) {
+        int max = maxDistance(query.length());
+        Set<Integer> seen = new HashSet<>();
+        List<Match> out = new ArrayList<>();
+        for (String deletion : deletions(query, max)) {
+            int[] candidates = wordsByDeletion.get(deletion);
+            if (candidates == null) continue;
+            for (int id : candidates) {
+                if (!seen.add(id)) continue;
+                int distance = distance(query, words[id], max);
+                if (distance <= max) out.add(new Match(id, distance));
+            }
+        }
+        out.sort(Comparator.comparingInt(Match::distance).thenComparing(m -> words[m.word()]));
+        return out.size() > MAX_MATCHES ? out.subList(0, MAX_MATCHES) : out;
+    }
+
+    /** Heads containing the word. Do not modify. */
+    BitSet heads(int word) {
+        return headsByWord[word];
+    }
+
+    /** The word itself and every string made by deleting up to {@code max} of its letters. */
+    private static Set<String> deletions(String word, int max) {
+        Set<String> out = new HashSet<>();
+        out.add(word);
+        List<String> frontier = List.of(word);
+        for (int d = 0; d < max; d++) {
+            List<String> next = new ArrayList<>();
+            for (String s : frontier) {
+                if (s.length() <= 1) continue;
+                for (int i = 0; i < s.length(); i++) {
+                    String deleted = s.substring(0, i) + s.substring(i + 1);
+                    if (out.add(deleted)) next.add(deleted);
+                }
+            }
+            frontier = next;
+        }
+        return out;
+    }
+
+    /**
+     * Edit distance counting insertions, deletions, substitutions and swaps of neighbouring
+     * letters, or {@code max + 1} once it is known to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, row[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prevPrev[j - 2] + 1);
+                }
+                row[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prevPrev;
+            prevPrev = prev;
+            prev = row;
+            row = t;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+}
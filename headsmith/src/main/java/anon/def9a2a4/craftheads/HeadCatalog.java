@@ -0,0 +1,50 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only view of the HeadSmith catalog for other plugins.
+ *
+ * <p>Get the live catalog from Bukkit's services manager:
+ * <pre>{@code
+ * HeadCatalog catalog = Bukkit.getServicesManager().load(HeadCatalog.class);
+ * }</pre>
+ * The registered service always answers from the current catalog. Listen for
+ * {@link HeadCatalogReloadEvent} to be told when it changes; the event carries a snapshot that
+ * never changes, which is safe to keep and to read from any thread.
+ */
+public interface HeadCatalog {
+
+    /** All heads, in catalog order. */
+    Collection<CatalogHead> all();
+
+    int size();
+
+    Optional<CatalogHead> byId(String headId);
+
+    /** Look a head up by its skin texture id (the hash at the end of the texture URL) or full URL. */
+    Optional<CatalogHead> byTexture(String textureIdOrUrl);
+
+    /** The head an item stack is, whether it was made by HeadSmith or carries a matching texture. */
+    Optional<CatalogHead> byItem(ItemStack item);
+
+    /** Heads with exactly this tag, in catalog order. */
+    List<CatalogHead> byTag(String tag);
+
+    /**
+     * Heads matching a search query, as typed into {@code /headsmith search}: words that must all
+     * match the name, id or tags, {@code tag:<tag>} and {@code prop:<property>} filters, {@code -}
+     * to negate a word and {@code OR} between alternatives. Words tolerate small typos, and
+     * results are ranked best match first when the query has words.
+     *
+     * @throws IllegalArgumentException if the query is malformed, e.g. an unknown property
+     */
+    List<CatalogHead> search(String query);
+
+    /** A new stack of the head, or empty if there is no such head. Call from the main thread. */
+    Optional<ItemStack> createItem(String headId, int amount);
+}
@@ -0,0 +1,32 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called on the main thread after the HeadSmith catalog was replaced, by {@code /hs reload} or
+ * by an edited custom head file, once the new catalog's recipes are registered with the server.
+ */
+public final class HeadCatalogReloadEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final HeadCatalog catalog;
+
+    HeadCatalogReloadEvent(HeadCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /** The new catalog. It is a snapshot and does not change afterwards. */
+    public HeadCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,92 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands the same set of head stacks to a list of players, spread over as many ticks as it takes.
+ * The template stacks are built once by the caller; each player gets clones in a single
+ * {@code addItem} call and whatever doesn't fit is dropped at their feet.
+ */
+final class HeadDistribution implements Runnable {
+    private static final long TICK_BUDGET_NANOS = 2_000_000; // 2ms of each tick
+
+    private final Plugin plugin;
+    private final CommandSender sender;
+    private final ItemStack[] templates;
+    private final List<Player> targets;
+    private final String description;
+
+    private int next;
+    private int players;
+    private int dropped;
+    private BukkitTask task;
+
+    /**
+     * @param description what is being given, e.g. "3x Candle" or "26 heads"
+     */
+    HeadDistribution(Plugin plugin, CommandSender sender, List<ItemStack> templates, List<Player> targets, String description) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.templates = templates.toArray(new ItemStack[0]);
+        this.targets = targets;
+        this.description = description;
+    }
+
+    /** Give to as many players as fit in this tick, then continue on the following ticks. */
+    void start() {
+        run();
+        if (next < targets.size()) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1, 1);
+        }
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+        while (next < targets.size()) {
+            Player player = targets.get(next++);
+            if (player.isOnline()) {
+                give(player);
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+        if (next >= targets.size()) {
+            if (task != null) task.cancel();
+            report();
+        }
+    }
+
+    private void give(Player player) {
+        ItemStack[] stacks = new ItemStack[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            stacks[i] = templates[i].clone();
+        }
+        Map<Integer, ItemStack> leftover = player.getInventory().addItem(stacks);
+        for (ItemStack lf : leftover.values()) {
+            player.getWorld().dropItemNaturally(player.getLocation(), lf);
+        }
+        dropped += leftover.size();
+        players++;
+
+        if (player != sender) {
+            player.sendMessage(ChatColor.GREEN + "You received " + description);
+        }
+    }
+
+    private void report() {
+        String to = players == 1 && targets.size() == 1 ? targets.get(0).getName() : players + " players";
+        sender.sendMessage(ChatColor.GREEN + "Gave " + description + " to " + to);
+        if (dropped > 0) {
+            sender.sendMessage(ChatColor.YELLOW + "" + dropped + " stacks were dropped because inventories were full");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package anon.def9a2a4.headsmith;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the custom head files listed in the config and reports which one changed.
+ *
+ * <p>Editors usually save in several steps (truncate, write, rename), so events are debounced
+ * per file and the callback fires once the file has been quiet for a moment. The callback runs
+ * on the watcher thread, never on the server thread.
+ */
+final class HeadFileWatcher implements Runnable {
+    private static final long DEBOUNCE_MILLIS = 750;
+
+    private final Logger logger;
+    private final Map<Path, String> filesByPath = new HashMap<>(); // absolute path -> config entry
+    private final Consumer<String> onChange;
+    private final Map<String, Long> pending = new HashMap<>(); // config entry -> fire time
+
+    private WatchService watchService;
+    private Thread thread;
+
+    HeadFileWatcher(Logger logger, Path dataFolder, List<String> files, Consumer<String> onChange) {
+        this.logger = logger;
+        this.onChange = onChange;
+        for (String file : files) {
+            filesByPath.put(dataFolder.resolve(file).toAbsolutePath().normalize(), file);
+        }
+    }
+
+    void start() {
+        if (filesByPath.isEmpty()) return;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> dirs = new HashSet<>();
+            for (Path file : filesByPath.keySet()) {
+                Path dir = file.getParent();
+                if (dir != null && Files.isDirectory(dir) && dirs.add(dir)) {
+                    dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Could not watch custom head files: " + e.getMessage());
+            stop();
+            return;
+        }
+        thread = new Thread(this, "HeadSmith-FileWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pending.isEmpty()
+                    ? watchService.take()
+                    : watchService.poll(Math.max(1, nextFireTime() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            // Lost events, so assume every file in this directory changed
+                            for (Map.Entry<Path, String> e : filesByPath.entrySet()) {
+                                if (dir.equals(e.getKey().getParent())) schedule(e.getValue());
+                            }
+                            continue;
+                        }
+                        String file = filesByPath.get(dir.resolve((Path) event.context()));
+                        if (file != null) schedule(file);
+                    }
+                    key.reset();
+                }
+                fireDue();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private void schedule(String file) {
+        pending.put(file, System.currentTimeMillis() + DEBOUNCE_MILLIS);
+    }
+
+    private long nextFireTime() {
+        long next = Long.MAX_VALUE;
+        for (long time : pending.values()) next = Math.min(next, time);
+        return next;
+    }
+
+    private void fireDue() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (e.getValue() > now) continue;
+            it.remove();
+            try {
+                onChange.accept(e.getKey());
+            } catch (RuntimeException ex) {
+                logger.warning("Failed to reload " + e.getKey() + ": " + ex.getMessage());
+            }
+        }
+    }
+}
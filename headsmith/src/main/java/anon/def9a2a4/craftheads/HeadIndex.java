@@ -0,0 +1,306 @@
+package anon.def9a2a4.headsmith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Heads numbered in tag tree order, with a bitset of ordinals per tag and per property so
+ * filters combine with word-wise AND/OR instead of scanning every head. Built once per catalog
+ * load and immutable afterwards, so it can be shared with other threads.
+ */
+final class HeadIndex {
+    static final HeadIndex EMPTY = new HeadIndex(List.of(), List.of(), List.of());
+
+    private final TagTree tagTree;
+    private final HeadDef[] heads;
+    private final String[] searchText; // lower-cased plain name, id and tags per head
+    private final String[] nameWords;  // lower-cased name words per head, space-separated and padded
+    private final FuzzyIndex fuzzy;
+    private final Map<String, BitSet> byTag = new HashMap<>();      // heads with exactly this tag
+    private final Map<String, BitSet> byTagTree = new HashMap<>();  // heads with this tag or a child of it
+    private final Map<HeadProperty, BitSet> byProperty = new EnumMap<>(HeadProperty.class);
+    private final BitSet all;
+
+    /** @see TagTree#TagTree(Collection, List, List) */
+    HeadIndex(Collection<HeadDef> defs, List<String> tagOrderFirst, List<String> tagOrderLast) {
+        tagTree = new TagTree(defs, tagOrderFirst, tagOrderLast);
+        heads = tagTree.ordered().toArray(new HeadDef[0]);
+        searchText = new String[heads.length];
+        nameWords = new String[heads.length];
+        String[][] wordsByHead = new String[heads.length][];
+        all = new BitSet(heads.length);
+        all.set(0, heads.length);
+
+        for (int i = 0; i < heads.length; i++) {
+            HeadDef head = heads[i];
+            searchText[i] = (head.plainName() + '\n' + head.id() + '\n'
+                + String.join("\n", head.tags())).toLowerCase(Locale.ROOT);
+            nameWords[i] = " " + String.join(" ", words(head.plainName())) + " ";
+            wordsByHead[i] = words(searchText[i]);
+            for (String tag : head.tags()) {
+                byTag.computeIfAbsent(tag, t -> new BitSet(heads.length)).set(i);
+                // "a/b/c" also counts for "a/b" and "a"
+                for (int slash = tag.length(); slash > 0; slash = tag.lastIndexOf('/', slash - 1)) {
+                    byTagTree.computeIfAbsent(tag.substring(0, slash), t -> new BitSet(heads.length)).set(i);
+                }
+            }
+            for (HeadProperty property : head.properties()) {
+                byProperty.computeIfAbsent(property, p -> new BitSet(heads.length)).set(i);
+            }
+        }
+        fuzzy = new FuzzyIndex(wordsByHead);
+    }
+
+    private static String[] words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            .filter(w -> !w.isEmpty())
+            .distinct()
+            .toArray(String[]::new);
+    }
+
+    int size() {
+        return heads.length;
+    }
+
+    HeadDef head(int ordinal) {
+        return heads[ordinal];
+    }
+
+    TagTree tagTree() {
+        return tagTree;
+    }
+
+    /** Every head, in tree order. */
+    List<HeadDef> heads() {
+        return tagTree.ordered();
+    }
+
+    /** Heads with the tag or a tag below it, in tree order. */
+    List<HeadDef> headsUnder(String tag) {
+        Optional<TagTree.Node> node = tagTree.node(tag);
+        if (node.isEmpty()) return List.of();
+        if (node.get().isContiguous()) {
+            return tagTree.ordered().subList(node.get().start(), node.get().end());
+        }
+        return heads(tag(tag, true));
+    }
+
+    /** A fresh set with every head in it. */
+    BitSet all() {
+        return (BitSet) all.clone();
+    }
+
+    /** Heads with this tag, or with any tag below it when {@code subtree} is set. Do not modify. */
+    BitSet tag(String tag, boolean subtree) {
+        BitSet bits = (subtree ? byTagTree : byTag).get(tag);
+        return bits != null ? bits : new BitSet();
+    }
+
+    /** Heads with this property. Do not modify. */
+    BitSet property(HeadProperty property) {
+        BitSet bits = byProperty.get(property);
+        return bits != null ? bits : new BitSet();
+    }
+
+    /** Keep (or, when {@code negate} is set, drop) the heads in {@code bits} whose text contains the word. */
+    void retainText(BitSet bits, String lowerCaseWord, boolean negate) {
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            if (searchText[i].contains(lowerCaseWord) == negate) bits.clear(i);
+        }
+    }
+
+    /**
+     * Keep the heads in {@code bits} whose text contains the word, or that have a word close
+     * enough to it to be a typo.
+     */
+    void retainTextOrTypo(BitSet bits, String lowerCaseWord, List<FuzzyIndex.Match> typos) {
+        BitSet near = new BitSet(heads.length);
+        for (FuzzyIndex.Match match : typos) {
+            near.or(fuzzy.heads(match.word()));
+        }
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            if (!near.get(i) && !searchText[i].contains(lowerCaseWord)) bits.clear(i);
+        }
+    }
+
+    List<FuzzyIndex.Match> typos(String lowerCaseWord) {
+        return fuzzy.lookup(lowerCaseWord);
+    }
+
+    /**
+     * How well a head matches a search word: a whole word of the name beats the start of one,
+     * which beats anywhere in the name, then the id or tags, then a near miss.
+     */
+    int score(int ordinal, String lowerCaseWord, List<FuzzyIndex.Match> typos) {
+        if (nameWords[ordinal].contains(" " + lowerCaseWord + " ")) return 100;
+        if (nameWords[ordinal].contains(" " + lowerCaseWord)) return 80;
+        if (nameWords[ordinal].contains(lowerCaseWord)) return 60;
+        if (searchText[ordinal].contains(lowerCaseWord)) return 40;
+        for (FuzzyIndex.Match match : typos) { // nearest first
+            if (fuzzy.heads(match.word()).get(ordinal)) return 30 - 10 * match.distance();
+        }
+        return 0;
+    }
+
+    /** The heads in the set, in catalog order. */
+    List<HeadDef> heads(BitSet bits) {
+        List<HeadDef> out = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            out.add(heads[i]);
+        }
+        return out;
+    }
+}
+
+/**
+ * A parsed search query. Words are separated by spaces and must all match; {@code OR} between
+ * groups of words matches either group. A word is one of
+ * <ul>
+ *   <li>{@code tag:alphabet/oak}: has the tag or a tag below it</li>
+ *   <li>{@code prop:lightable}: has the head property</li>
+ *   <li>anything else: name, id or a tag contains it, or has a word one or two typos away</li>
+ * </ul>
+ * and is negated with a leading {@code -} (negated words must match exactly).
+ */
+final class HeadQuery {
+    static final int MAX_RANKED_RESULTS = 500;
+
+    private enum Kind { TAG, PROPERTY, TEXT }
+
+    private record Term(Kind kind, String value, HeadProperty property, boolean negated) {}
+
+    private final List<List<Term>> clauses; // OR of ANDs
+    private final List<String> words;       // distinct positive text words, for ranking
+
+    private HeadQuery(List<List<Term>> clauses) {
+        this.clauses = clauses;
+        this.words = clauses.stream().flatMap(List::stream)
+            .filter(t -> t.kind() == Kind.TEXT && !t.negated())
+            .map(Term::value)
+            .distinct()
+            .toList();
+    }
+
+    /** @throws IllegalArgumentException with a message for the player if the query is malformed */
+    static HeadQuery parse(String query) {
+        List<List<Term>> clauses = new ArrayList<>();
+        List<Term> clause = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            if (word.equals("OR") || word.equals("|")) {
+                if (clause.isEmpty()) throw new IllegalArgumentException("OR needs a filter on both sides");
+                clauses.add(clause);
+                clause = new ArrayList<>();
+                continue;
+            }
+            clause.add(parseTerm(word));
+        }
+        if (clause.isEmpty()) {
+            throw new IllegalArgumentException(clauses.isEmpty() ? "Empty search" : "OR needs a filter on both sides");
+        }
+        clauses.add(clause);
+        return new HeadQuery(clauses);
+    }
+
+    private static Term parseTerm(String word) {
+        boolean negated = word.length() > 1 && word.charAt(0) == '-';
+        if (negated) word = word.substring(1);
+
+        String lower = word.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("tag:")) {
+            String tag = word.substring(4);
+            if (tag.isEmpty()) throw new IllegalArgumentException("tag: needs a tag, e.g. tag:alphabet/oak");
+            return new Term(Kind.TAG, tag, null, negated);
+        }
+        if (lower.startsWith("prop:")) {
+            String name = word.substring(5);
+            HeadProperty property = HeadProperty.fromString(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown property: " + name));
+            return new Term(Kind.PROPERTY, name, property, negated);
+        }
+        return new Term(Kind.TEXT, lower, null, negated);
+    }
+
+    /** Ordinals of the matching heads. */
+    BitSet evaluate(HeadIndex index) {
+        return evaluate(index, typos(index));
+    }
+
+    private Map<String, List<FuzzyIndex.Match>> typos(HeadIndex index) {
+        Map<String, List<FuzzyIndex.Match>> typos = new HashMap<>();
+        for (String word : words) {
+            typos.put(word, index.typos(word));
+        }
+        return typos;
+    }
+
+    private BitSet evaluate(HeadIndex index, Map<String, List<FuzzyIndex.Match>> typos) {
+        BitSet result = new BitSet(index.size());
+        for (List<Term> clause : clauses) {
+            BitSet bits = index.all();
+            // Set operations first, so text is only checked for heads that are still in
+            for (Term term : clause) {
+                if (term.kind() == Kind.TEXT) continue;
+                BitSet termBits = term.kind() == Kind.TAG
+                    ? index.tag(term.value(), true)
+                    : index.property(term.property());
+                if (term.negated()) {
+                    bits.andNot(termBits);
+                } else {
+                    bits.and(termBits);
+                }
+            }
+            for (Term term : clause) {
+                if (term.kind() != Kind.TEXT || bits.isEmpty()) continue;
+                if (term.negated()) {
+                    index.retainText(bits, term.value(), true);
+                } else {
+                    index.retainTextOrTypo(bits, term.value(), typos.get(term.value()));
+                }
+            }
+            result.or(bits);
+        }
+        return result;
+    }
+
+    /**
+     * Ordinals of the matching heads. When the query has words they are ranked best match first
+     * and capped at {@value #MAX_RANKED_RESULTS}; pure tag/property filters keep catalog order.
+     */
+    int[] ranked(HeadIndex index) {
+        Map<String, List<FuzzyIndex.Match>> typos = typos(index);
+        BitSet bits = evaluate(index, typos);
+        int[] ordinals = bits.stream().toArray();
+        if (words.isEmpty()) return ordinals;
+
+        int[] scores = new int[index.size()];
+        for (int ordinal : ordinals) {
+            for (String word : words) {
+                scores[ordinal] += index.score(ordinal, word, typos.get(word));
+            }
+        }
+        return Arrays.stream(ordinals).boxed()
+            .sorted(Comparator.comparingInt((Integer o) -> -scores[o]).thenComparingInt(o -> o))
+            .limit(MAX_RANKED_RESULTS)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    List<HeadDef> matches(HeadIndex index) {
+        int[] ordinals = ranked(index);
+        List<HeadDef> out = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            out.add(index.head(ordinal));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,182 @@
+package anon.def9a2a4.headsmith;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared table of every tag seen while loading. Heads refer to tags by their small integer id.
+ *
+ * <p>Append-only and safe to read from any thread while a load or file reload adds tags: the
+ * name array is replaced, never modified, and is published before the new id can be looked up.
+ */
+final class TagTable {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+
+    int intern(String tag) {
+        Integer id = ids.get(tag);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(tag);
+            if (id != null) return id;
+            String[] grown = Arrays.copyOf(names, names.length + 1);
+            grown[names.length] = tag;
+            names = grown;
+            ids.put(tag, grown.length - 1);
+            return grown.length - 1;
+        }
+    }
+
+    /** Returns the id of a tag, or -1 if no head has it. */
+    int idOf(String tag) {
+        Integer id = ids.get(tag);
+        return id != null ? id : -1;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return names.length;
+    }
+}
+
+/**
+ * Immutable, insertion-ordered tag set stored as ids into a {@link TagTable}.
+ * Heads have a handful of tags, so membership is a short scan over an int array.
+ */
+final class TagSet extends AbstractSet<String> {
+    private final TagTable table;
+    private final int[] ids;
+
+    TagSet(TagTable table, int[] ids) {
+        this.table = table;
+        this.ids = ids;
+    }
+
+    int[] ids() {
+        return ids;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String tag)) return false;
+        int id = table.idOf(tag);
+        if (id < 0) return false;
+        for (int x : ids) {
+            if (x == id) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < ids.length;
+            }
+
+            @Override
+            public String next() {
+                if (i >= ids.length) throw new NoSuchElementException();
+                return table.name(ids[i++]);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+}
+
+/**
+ * Deduplicates the values that repeat across thousands of heads while a catalog is loaded:
+ * tags become ids into a shared {@link TagTable}, and identical lore lists and lines and
+ * ingredient specs are replaced by a single shared instance. Names are unique per head, so
+ * they aren't interned. Everything handed out is immutable so it can be shared safely.
+ */
+final class CatalogInterner {
+    // Assumed HotSpot object sizes (64-bit, compressed oops) for the saving estimate in report().
+    // Nothing is measured; the real figure depends on the JVM and its flags.
+    private static final int STRING_BYTES = 24 + 16;
+    private static final int LIST_BYTES = 24 + 16;
+    private static final int HASH_SET_BYTES = 56 + 16 + 16 * 4;
+    private static final int HASH_SET_ENTRY_BYTES = 40;
+    private static final int TAG_SET_BYTES = 16 + 16;
+    private static final int INGREDIENT_BYTES = 24;
+
+    private final TagTable tagTable;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<List<String>, List<String>> stringLists = new HashMap<>();
+    private final Map<IngredientSpec, IngredientSpec> ingredients = new HashMap<>();
+
+    private long estimatedBytesSaved;
+    private int tagRefs;
+
+    CatalogInterner(TagTable tagTable) {
+        this.tagTable = tagTable;
+    }
+
+    private String string(String s) {
+        if (s == null) return null;
+        String existing = strings.putIfAbsent(s, s);
+        if (existing == null) return s;
+        estimatedBytesSaved += align(STRING_BYTES + s.length());
+        return existing;
+    }
+
+    List<String> lore(List<String> lines) {
+        if (lines.isEmpty()) return List.of();
+        List<String> existing = stringLists.get(lines);
+        if (existing != null) {
+            estimatedBytesSaved += align(LIST_BYTES + 4L * lines.size());
+            for (String line : lines) estimatedBytesSaved += align(STRING_BYTES + line.length());
+            return existing;
+        }
+        List<String> interned = new ArrayList<>(lines.size());
+        for (String line : lines) interned.add(string(line));
+        List<String> copy = List.copyOf(interned);
+        stringLists.put(copy, copy);
+        return copy;
+    }
+
+    Set<String> tags(Collection<String> tags) {
+        int[] ids = new int[tags.size()];
+        int i = 0;
+        for (String tag : tags) ids[i++] = tagTable.intern(tag);
+        tagRefs += ids.length;
+        estimatedBytesSaved += (HASH_SET_BYTES + (long) HASH_SET_ENTRY_BYTES * ids.length) - align(TAG_SET_BYTES + 4L * ids.length);
+        return new TagSet(tagTable, ids);
+    }
+
+    IngredientSpec ingredient(IngredientSpec spec) {
+        IngredientSpec existing = ingredients.putIfAbsent(spec, spec);
+        if (existing == null) return spec;
+        estimatedBytesSaved += INGREDIENT_BYTES;
+        return existing;
+    }
+
+    String report() {
+        return "Deduplicated catalog: " + tagRefs + " tag references to " + tagTable.size() + " tags, "
+            + stringLists.size() + " distinct lore lists, " + ingredients.size() + " distinct ingredients"
+            + " (estimated ~" + (estimatedBytesSaved / 1024) + " KB saved, from assumed object sizes)";
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -1,6 +1,8 @@
 package anon.def9a2a4.headsmith;
 
-import org.bukkit.Bukkit;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -14,19 +16,21 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
-import static anon.def9a2a4.headsmith.HeadUtils.color;
 import static anon.def9a2a4.headsmith.HeadUtils.giveToInventoryOrDrop;
 import static anon.def9a2a4.headsmith.HeadUtils.getPdcString;
 
 enum MenuType {
-    CATALOG, SEARCH_RESULTS, HEAD_DETAIL, STONECUTTER_SELECT, TAG_LIST
+    CATALOG, SEARCH_RESULTS, HEAD_DETAIL, STONECUTTER_SELECT, TAG_LIST, USED_IN
 }
 
 abstract class HeadSmithMenuHolder implements InventoryHolder {
@@ -73,12 +77,13 @@ final class HeadDetailMenuHolder extends HeadSmithMenuHolder {
     private final Map<Integer, String> clickableHeadSlots; // slot -> headId
 
     HeadDetailMenuHolder(HeadDef headDef, List<String> navigationStack,
-                         int catalogReturnPage, String catalogReturnSearchQuery) {
+                         int catalogReturnPage, String catalogReturnSearchQuery,
+                         Map<Integer, String> clickableHeadSlots) {
         this.headDef = headDef;
         this.navigationStack = navigationStack;
         this.catalogReturnPage = catalogReturnPage;
         this.catalogReturnSearchQuery = catalogReturnSearchQuery;
-        this.clickableHeadSlots = new HashMap<>();
+        this.clickableHeadSlots = clickableHeadSlots;
     }
 
     HeadDef getHeadDef() { return headDef; }
@@ -110,6 +115,28 @@ final class StonecutterSelectMenuHolder extends HeadSmithMenuHolder {
     MenuType getMenuType() { return MenuType.STONECUTTER_SELECT; }
 }
 
+final class UsedInMenuHolder extends HeadSmithMenuHolder {
+    private final IngredientSpec ingredient;
+    private final int page;
+    private final List<String> displayedHeadIds;
+    private final int totalHeads;
+
+    UsedInMenuHolder(IngredientSpec ingredient, int page, List<String> displayedHeadIds, int totalHeads) {
+        this.ingredient = ingredient;
+        this.page = page;
+        this.displayedHeadIds = displayedHeadIds;
+        this.totalHeads = totalHeads;
+    }
+
+    IngredientSpec getIngredient() { return ingredient; }
+    int getPage() { return page; }
+    List<String> getDisplayedHeadIds() { return displayedHeadIds; }
+    int getTotalHeads() { return totalHeads; }
+
+    @Override
+    MenuType getMenuType() { return MenuType.USED_IN; }
+}
+
 final class TagListMenuHolder extends HeadSmithMenuHolder {
     private final int page;
     private final String parentTag;  // null for root, "alphabet" when viewing subtags
@@ -132,6 +159,56 @@ final class TagListMenuHolder extends HeadSmithMenuHolder {
     MenuType getMenuType() { return MenuType.TAG_LIST; }
 }
 
+/**
+ * Each player's last catalog view: the resolved, ordered result list and the page they were on.
+ * Paging, coming back from a head's details and reopening the catalog reuse the list instead of
+ * filtering the whole catalog again. Sessions expire after a few minutes and the least recently
+ * used are evicted past a cap. Sessions belong to one {@link HeadMenus}, so a reload starts fresh.
+ * Menus are composed on worker threads, so access is synchronized.
+ */
+final class BrowseSessions {
+    record Session(String searchQuery, String tagFilter, List<HeadDef> results, int page, long lastUsed) {}
+
+    private static final long TTL_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_SESSIONS = 256;
+
+    private final Map<UUID, Session> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    synchronized Session get(UUID playerId) {
+        Session session = sessions.get(playerId);
+        if (session != null && System.currentTimeMillis() - session.lastUsed() > TTL_MILLIS) {
+            sessions.remove(playerId);
+            return null;
+        }
+        return session;
+    }
+
+    /** The results for a view, from the player's session if it is for the same query and tag. */
+    List<HeadDef> results(UUID playerId, String searchQuery, String tagFilter, Supplier<List<HeadDef>> compute) {
+        Session session = get(playerId);
+        if (session != null && Objects.equals(session.searchQuery(), searchQuery)
+                && Objects.equals(session.tagFilter(), tagFilter)) {
+            return session.results();
+        }
+        return compute.get(); // outside the lock
+    }
+
+    synchronized void update(UUID playerId, String searchQuery, String tagFilter, List<HeadDef> results, int page) {
+        sessions.put(playerId, new Session(searchQuery, tagFilter, results, page, System.currentTimeMillis()));
+    }
+}
+
+/**
+ * The static part of a head's detail view: title, slot contents and which slots link to other
+ * heads. Only depends on the catalog, so it is built once per head and reused for every open.
+ */
+record DetailLayout(String title, ItemStack[] items, Map<Integer, String> clickableHeadSlots) {}
+
 record Pagination(int page, int totalPages, int startIndex, int endIndex) {
     static Pagination of(int requestedPage, int totalItems, int itemsPerPage) {
         int totalPages = Math.max(1, (int) Math.ceil((double) totalItems / itemsPerPage));
@@ -148,52 +225,77 @@ record Pagination(int page, int totalPages, int startIndex, int endIndex) {
 final class HeadMenus {
     static final int HEADS_PER_PAGE = 36;
     static final int STONECUTTER_ITEMS_PER_PAGE = 45;
+    private static final int MAX_DETAIL_LAYOUTS = 512;
 
     private final Map<String, HeadDef> headsById;
     private final List<HeadStonecutterRecipe> headStonecutterRecipes;
-    private final Map<String, String> firstHeadByTag;
-    private final Map<String, Set<String>> tagChildren;  // parent tag -> child tags
     private final NamespacedKey pdcHeadIdKey;
-    private final BiFunction<String, Integer, ItemStack> headItemMaker;
-    private final List<String> tagOrderFirst;
-    private final List<String> tagOrderLast;
+    private final BiFunction<HeadDef, Integer, ItemStack> headItemMaker;
+    private final UsageIndex usageIndex;
+    private final HeadIndex headIndex;
+    private final MenuComposer composer;
+    private final BrowseSessions sessions = new BrowseSessions();
+    private final Map<String, DetailLayout> detailLayouts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DetailLayout> eldest) {
+            return size() > MAX_DETAIL_LAYOUTS;
+        }
+    };
 
+    /**
+     * Menus are composed on worker threads, so everything passed in must be immutable (or, for
+     * the item maker, thread-safe).
+     */
     HeadMenus(Map<String, HeadDef> headsById, List<HeadStonecutterRecipe> headStonecutterRecipes,
-              Map<String, String> firstHeadByTag, Map<String, Set<String>> tagChildren,
-              NamespacedKey pdcHeadIdKey, BiFunction<String, Integer, ItemStack> headItemMaker,
-              List<String> tagOrderFirst, List<String> tagOrderLast) {
+              NamespacedKey pdcHeadIdKey, BiFunction<HeadDef, Integer, ItemStack> headItemMaker,
+              UsageIndex usageIndex, HeadIndex headIndex, MenuComposer composer) {
         this.headsById = headsById;
         this.headStonecutterRecipes = headStonecutterRecipes;
-        this.firstHeadByTag = firstHeadByTag;
-        this.tagChildren = tagChildren;
         this.pdcHeadIdKey = pdcHeadIdKey;
         this.headItemMaker = headItemMaker;
-        this.tagOrderFirst = tagOrderFirst;
-        this.tagOrderLast = tagOrderLast;
+        this.usageIndex = usageIndex;
+        this.headIndex = headIndex;
+        this.composer = composer;
+    }
+
+    /** Close the menu, dropping any menu still being composed for the player. */
+    private void closeMenu(Player player) {
+        composer.cancel(player);
+        player.closeInventory();
+    }
+
+    private ItemStack headItem(String headId, int amount) {
+        HeadDef def = headsById.get(headId);
+        return def != null ? headItemMaker.apply(def, amount) : new ItemStack(Material.AIR);
     }
 
     void openCatalogMenu(Player player, int page, String searchQuery) {
         openCatalogMenu(player, page, searchQuery, null);
     }
 
+    /**
+     * Reopen the player's last catalog view where they left it.
+     *
+     * @return false if they have no live session
+     */
+    boolean resumeCatalogMenu(Player player) {
+        BrowseSessions.Session session = sessions.get(player.getUniqueId());
+        if (session == null) return false;
+        openCatalogMenu(player, session.page(), session.searchQuery(), session.tagFilter());
+        return true;
+    }
+
     void openCatalogMenu(Player player, int page, String searchQuery, String tagFilter) {
-        List<HeadDef> allHeads;
+        UUID playerId = player.getUniqueId();
+        composer.open(player, () -> composeCatalogMenu(playerId, page, searchQuery, tagFilter));
+    }
 
-        if (tagFilter != null && !tagFilter.isBlank()) {
-            allHeads = headsById.values().stream()
-                .filter(h -> h.tags().contains(tagFilter))
-                .toList();
-        } else if (searchQuery != null && !searchQuery.isBlank()) {
-            String query = searchQuery.toLowerCase();
-            allHeads = headsById.values().stream()
-                .filter(h -> ChatColor.stripColor(color(h.name())).toLowerCase().contains(query)
-                          || h.id().toLowerCase().contains(query))
-                .toList();
-        } else {
-            allHeads = new ArrayList<>(headsById.values());
-        }
+    private ComposedMenu composeCatalogMenu(UUID playerId, int page, String searchQuery, String tagFilter) {
+        List<HeadDef> allHeads = sessions.results(playerId, searchQuery, tagFilter,
+            () -> filterHeads(searchQuery, tagFilter));
 
         Pagination pag = Pagination.of(page, allHeads.size(), HEADS_PER_PAGE);
+        sessions.update(playerId, searchQuery, tagFilter, allHeads, pag.page());
         List<HeadDef> pageHeads = allHeads.subList(pag.startIndex(), pag.endIndex());
 
         CatalogMenuHolder holder = new CatalogMenuHolder(pag.page(), searchQuery, tagFilter, pageHeads, allHeads.size());
@@ -207,27 +309,40 @@ final class HeadMenus {
             title = ChatColor.DARK_PURPLE + "Head Catalog";
         }
 
-        Inventory inv = Bukkit.createInventory(holder, 54, title);
-        holder.setInventory(inv);
+        ItemStack[] slots = new ItemStack[54];
 
         ItemStack filler = createFillerPane();
-        for (int i = 0; i < 9; i++) inv.setItem(i, filler);
-        for (int i = 45; i < 54; i++) inv.setItem(i, filler);
+        for (int i = 0; i < 9; i++) slots[i] = filler;
+        for (int i = 45; i < 54; i++) slots[i] = filler;
 
-        inv.setItem(0, createInfoItem(allHeads.size(), pag.page(), pag.totalPages(), searchQuery, tagFilter));
-        inv.setItem(3, createTagsButton());
-        inv.setItem(4, createPageItemPaper(pag));
-        inv.setItem(8, createSearchButton());
+        slots[0] = createInfoItem(allHeads.size(), pag.page(), pag.totalPages(), searchQuery, tagFilter);
+        slots[3] = createTagsButton();
+        slots[4] = createPageItemPaper(pag);
+        slots[8] = createSearchButton();
 
         for (int i = 0; i < pageHeads.size(); i++) {
-            inv.setItem(9 + i, makeHeadDisplayItem(pageHeads.get(i)));
+            slots[9 + i] = makeHeadDisplayItem(pageHeads.get(i));
         }
 
-        inv.setItem(45, createNavigationArrow("Previous Page", pag.hasPrev()));
-        inv.setItem(49, createCloseButton());
-        inv.setItem(53, createNavigationArrow("Next Page", pag.hasNext()));
+        slots[45] = createNavigationArrow("Previous Page", pag.hasPrev());
+        slots[49] = createCloseButton();
+        slots[53] = createNavigationArrow("Next Page", pag.hasNext());
 
-        player.openInventory(inv);
+        return new ComposedMenu(holder, title, slots);
+    }
+
+    private List<HeadDef> filterHeads(String searchQuery, String tagFilter) {
+        if (tagFilter != null && !tagFilter.isBlank()) {
+            return headIndex.headsUnder(tagFilter);
+        }
+        if (searchQuery != null && !searchQuery.isBlank()) {
+            try {
+                return HeadQuery.parse(searchQuery).matches(headIndex);
+            } catch (IllegalArgumentException e) {
+                return List.of(); // the search command reports malformed queries
+            }
+        }
+        return headIndex.heads();
     }
 
     void openHeadDetailMenu(Player player, HeadDef head, int returnPage, String returnSearchQuery) {
@@ -236,37 +351,100 @@ final class HeadMenus {
 
     void openHeadDetailMenu(Player player, HeadDef head, List<String> navigationStack,
                             int catalogReturnPage, String catalogReturnSearchQuery) {
-        HeadDetailMenuHolder holder = new HeadDetailMenuHolder(head, navigationStack,
-            catalogReturnPage, catalogReturnSearchQuery);
-
-        String title = truncateTitle(ChatColor.DARK_PURPLE + ChatColor.stripColor(color(head.name())));
+        composer.open(player, () -> {
+            DetailLayout layout;
+            synchronized (detailLayouts) {
+                layout = detailLayouts.get(head.id());
+            }
+            if (layout == null) {
+                // Built outside the lock so other menus (and their head items) aren't held up
+                DetailLayout built = buildDetailLayout(head);
+                synchronized (detailLayouts) {
+                    layout = detailLayouts.putIfAbsent(head.id(), built);
+                }
+                if (layout == null) layout = built;
+            }
+            HeadDetailMenuHolder holder = new HeadDetailMenuHolder(head, navigationStack,
+                catalogReturnPage, catalogReturnSearchQuery, layout.clickableHeadSlots());
+            return new ComposedMenu(holder, layout.title(), layout.items()); // the inventory copies the stacks
+        });
+    }
 
-        Inventory inv = Bukkit.createInventory(holder, 54, title);
-        holder.setInventory(inv);
+    private DetailLayout buildDetailLayout(HeadDef head) {
+        String title = truncateTitle(ChatColor.DARK_PURPLE + head.plainName());
+        ItemStack[] slots = new ItemStack[54];
+        Map<Integer, String> clickable = new HashMap<>();
 
         ItemStack filler = createFillerPane();
-        for (int i = 0; i < 54; i++) inv.setItem(i, filler);
-
-        inv.setItem(0, createBackButton());
-        inv.setItem(4, headItemMaker.apply(head.id(), 1));
-        inv.setItem(8, createGiveButton());
+        for (int i = 0; i < 54; i++) slots[i] = filler;
+
+        slots[0] = createBackButton();
+        slots[4] = headItem(head.id(), 1);
+        slots[8] = createGiveButton();
+        int uses = usageIndex.usesOf(new IngredientSpec(null, head.id())).size();
+        if (uses > 0) {
+            slots[6] = createUsedInButton(uses);
+        }
 
-        displayLoreSection(inv, head);
+        displayLoreSection(slots, head);
 
         int currentRow = 2;
         if (!head.shaped().isEmpty()) {
-            displayShapedRecipe(inv, holder, head, head.shaped().get(0), currentRow);
+            displayShapedRecipe(slots, clickable, head, head.shaped().get(0), currentRow);
             currentRow++;
         }
         if (!head.shapeless().isEmpty()) {
-            displayShapelessRecipe(inv, holder, head, head.shapeless().get(0), currentRow);
+            displayShapelessRecipe(slots, clickable, head, head.shapeless().get(0), currentRow);
             currentRow++;
         }
         if (!head.stonecutter().isEmpty()) {
-            displayStonecutterRecipe(inv, holder, head, head.stonecutter().get(0), currentRow);
+            displayStonecutterRecipe(slots, clickable, head, head.stonecutter().get(0), currentRow);
+        }
+
+        return new DetailLayout(title, slots, Map.copyOf(clickable));
+    }
+
+    /**
+     * Show the heads whose recipes use an ingredient.
+     *
+     * @return false if nothing uses it
+     */
+    boolean openUsedInMenu(Player player, IngredientSpec ingredient, int page) {
+        List<String> uses = usageIndex.usesOf(ingredient);
+        if (uses.isEmpty()) return false;
+        composer.open(player, () -> composeUsedInMenu(ingredient, uses, page));
+        return true;
+    }
+
+    private ComposedMenu composeUsedInMenu(IngredientSpec ingredient, List<String> uses, int page) {
+        Pagination pag = Pagination.of(page, uses.size(), HEADS_PER_PAGE);
+        List<String> pageHeadIds = uses.subList(pag.startIndex(), pag.endIndex());
+
+        UsedInMenuHolder holder = new UsedInMenuHolder(ingredient, pag.page(), pageHeadIds, uses.size());
+
+        String name = ingredient.headId != null ? getHeadName(ingredient.headId) : ingredient.material.name().toLowerCase();
+        String title = truncateTitle(ChatColor.DARK_PURPLE + "Used in: " + ChatColor.WHITE + name);
+        ItemStack[] slots = new ItemStack[54];
+
+        ItemStack filler = createFillerPane();
+        for (int i = 0; i < 9; i++) slots[i] = filler;
+        for (int i = 45; i < 54; i++) slots[i] = filler;
+
+        if (ingredient.headId != null) {
+            slots[0] = makeItem(Material.ARROW, "Back to " + name, NamedTextColor.YELLOW);
+        }
+        slots[4] = createPageItem(pag, line(uses.size() + " heads use this", NamedTextColor.GRAY));
+
+        for (int i = 0; i < pageHeadIds.size(); i++) {
+            HeadDef head = headsById.get(pageHeadIds.get(i));
+            if (head != null) slots[9 + i] = makeHeadDisplayItem(head);
         }
 
-        player.openInventory(inv);
+        slots[45] = createNavigationArrow("Previous Page", pag.hasPrev());
+        slots[49] = createCloseButton();
+        slots[53] = createNavigationArrow("Next Page", pag.hasNext());
+
+        return new ComposedMenu(holder, title, slots);
     }
 
     void openStonecutterSelectMenu(Player player, String inputHeadId, int page) {
@@ -278,7 +456,10 @@ final class HeadMenus {
             player.sendMessage(ChatColor.RED + "No stonecutter recipes available for this head.");
             return;
         }
+        composer.open(player, () -> composeStonecutterSelectMenu(inputHeadId, recipes, page));
+    }
 
+    private ComposedMenu composeStonecutterSelectMenu(String inputHeadId, List<HeadStonecutterRecipe> recipes, int page) {
         Pagination pag = Pagination.of(page, recipes.size(), STONECUTTER_ITEMS_PER_PAGE);
         List<HeadStonecutterRecipe> pageRecipes = recipes.subList(pag.startIndex(), pag.endIndex());
 
@@ -286,42 +467,43 @@ final class HeadMenus {
 
         String title = truncateTitle(ChatColor.DARK_PURPLE + "Stonecutter: " + getHeadName(inputHeadId));
 
-        Inventory inv = Bukkit.createInventory(holder, 54, title);
-        holder.setInventory(inv);
+        ItemStack[] slots = new ItemStack[54];
 
         ItemStack filler = createFillerPane();
-        for (int i = 45; i < 54; i++) inv.setItem(i, filler);
+        for (int i = 45; i < 54; i++) slots[i] = filler;
 
-        ItemStack inputItem = headItemMaker.apply(inputHeadId, 1);
+        ItemStack inputItem = headItem(inputHeadId, 1);
         ItemMeta inputMeta = inputItem.getItemMeta();
         if (inputMeta != null) {
-            appendLore(inputMeta, "", ChatColor.GRAY + "Select an output below");
+            appendLore(inputMeta, Component.empty(), line("Select an output below", NamedTextColor.GRAY));
             inputItem.setItemMeta(inputMeta);
         }
-        inv.setItem(49, inputItem);
-        inv.setItem(4, createPageItem(pag, ChatColor.GRAY + "" + recipes.size() + " recipes available"));
+        slots[49] = inputItem;
+        slots[4] = createPageItem(pag, line(recipes.size() + " recipes available", NamedTextColor.GRAY));
 
-        inv.setItem(45, createNavigationArrow("Previous Page", pag.hasPrev()));
-        inv.setItem(53, createNavigationArrow("Next Page", pag.hasNext()));
-        inv.setItem(48, createCloseButton());
+        slots[45] = createNavigationArrow("Previous Page", pag.hasPrev());
+        slots[53] = createNavigationArrow("Next Page", pag.hasNext());
+        slots[48] = createCloseButton();
 
         for (int i = 0; i < pageRecipes.size(); i++) {
             HeadStonecutterRecipe recipe = pageRecipes.get(i);
-            ItemStack outputItem = headItemMaker.apply(recipe.outputHeadId(), recipe.amount());
+            ItemStack outputItem = headItem(recipe.outputHeadId(), recipe.amount());
             ItemMeta meta = outputItem.getItemMeta();
             if (meta != null) {
                 if (recipe.amount() > 1) {
-                    appendLore(meta, "", ChatColor.YELLOW + "Click to craft",
-                        ChatColor.GRAY + "Produces: " + ChatColor.WHITE + recipe.amount());
+                    appendLore(meta, Component.empty(), line("Click to craft", NamedTextColor.YELLOW),
+                        line("Shift-click to craft all", NamedTextColor.YELLOW),
+                        labelled("Produces: ", NamedTextColor.GRAY, String.valueOf(recipe.amount())));
                 } else {
-                    appendLore(meta, "", ChatColor.YELLOW + "Click to craft");
+                    appendLore(meta, Component.empty(), line("Click to craft", NamedTextColor.YELLOW),
+                        line("Shift-click to craft all", NamedTextColor.YELLOW));
                 }
                 outputItem.setItemMeta(meta);
             }
-            inv.setItem(i, outputItem);
+            slots[i] = outputItem;
         }
 
-        player.openInventory(inv);
+        return new ComposedMenu(holder, title, slots);
     }
 
     void openTagListMenu(Player player, int page) {
@@ -329,137 +511,64 @@ final class HeadMenus {
     }
 
     void openTagListMenu(Player player, int page, String parentTag) {
-        List<String> tagsToShow;
-        String title;
+        composer.open(player, () -> composeTagListMenu(page, parentTag));
+    }
 
-        if (parentTag == null) {
-            // Root level: show top-level tags (first segment of hierarchical, or full flat tags)
-            tagsToShow = getTopLevelTags();
-            title = ChatColor.DARK_PURPLE + "Browse by Tag";
-        } else {
-            // Subtag level: show children of parent tag
-            Set<String> children = tagChildren.get(parentTag);
-            tagsToShow = children != null ? new ArrayList<>(children) : List.of();
-            title = ChatColor.DARK_PURPLE + "Tag: " + ChatColor.WHITE + parentTag;
-        }
+    private ComposedMenu composeTagListMenu(int page, String parentTag) {
+        TagTree.Node parent = parentTag != null
+            ? headIndex.tagTree().node(parentTag).orElse(headIndex.tagTree().root())
+            : headIndex.tagTree().root();
+        String title = parent.parent == null
+            ? ChatColor.DARK_PURPLE + "Browse by Tag"
+            : ChatColor.DARK_PURPLE + "Tag: " + ChatColor.WHITE + parent.path;
+        List<TagTree.Node> tagsToShow = parent.children();
 
         Pagination pag = Pagination.of(page, tagsToShow.size(), HEADS_PER_PAGE);
-        List<String> pageTags = tagsToShow.subList(pag.startIndex(), pag.endIndex());
+        List<String> pageTags = tagsToShow.subList(pag.startIndex(), pag.endIndex()).stream()
+            .map(node -> node.name)
+            .toList();
 
-        TagListMenuHolder holder = new TagListMenuHolder(pag.page(), parentTag, pageTags, tagsToShow.size());
+        TagListMenuHolder holder = new TagListMenuHolder(pag.page(), parent.parent == null ? null : parent.path,
+            pageTags, tagsToShow.size());
 
-        Inventory inv = Bukkit.createInventory(holder, 54, title);
-        holder.setInventory(inv);
+        ItemStack[] slots = new ItemStack[54];
 
         ItemStack filler = createFillerPane();
-        for (int i = 0; i < 9; i++) inv.setItem(i, filler);
-        for (int i = 45; i < 54; i++) inv.setItem(i, filler);
+        for (int i = 0; i < 9; i++) slots[i] = filler;
+        for (int i = 45; i < 54; i++) slots[i] = filler;
 
         // Back button: goes to parent level or catalog
-        if (parentTag != null) {
-            inv.setItem(0, createBackToTagsButton());
+        if (parent.parent != null) {
+            slots[0] = createBackToTagsButton();
+            slots[8] = createBrowseAllButton(parent.subtreeCount());
         } else {
-            inv.setItem(0, createBackToCatalogButton());
+            slots[0] = createBackToCatalogButton();
         }
-        inv.setItem(4, createPageItemPaper(pag));
+        slots[4] = createPageItemPaper(pag);
 
         for (int i = 0; i < pageTags.size(); i++) {
-            String tag = pageTags.get(i);
-            // For display, use the full tag path to find a representative head
-            String fullTag = parentTag != null ? parentTag + "/" + tag : tag;
-            String headId = firstHeadByTag.get(fullTag);
-            if (headId == null && tagChildren.containsKey(tag)) {
-                // It's a parent tag, find first child's head
-                Set<String> children = tagChildren.get(tag);
-                if (children != null && !children.isEmpty()) {
-                    String firstChild = children.iterator().next();
-                    headId = firstHeadByTag.get(tag + "/" + firstChild);
-                }
-            }
-
-            ItemStack item;
-            if (headId != null) {
-                item = headItemMaker.apply(headId, 1);
-            } else {
-                item = new ItemStack(Material.NAME_TAG);
-            }
+            TagTree.Node node = tagsToShow.get(pag.startIndex() + i);
+            ItemStack item = node.firstHeadId()
+                .map(id -> headItem(id, 1))
+                .orElseGet(() -> new ItemStack(Material.NAME_TAG));
 
             ItemMeta meta = item.getItemMeta();
             if (meta != null) {
-                meta.setDisplayName(ChatColor.GOLD + tag);
-
-                // Count heads with this tag (or subtag prefix)
-                long count;
-                boolean hasChildren = tagChildren.containsKey(parentTag != null ? fullTag : tag);
-                if (hasChildren) {
-                    // Count all heads that have tags starting with this prefix
-                    String prefix = (parentTag != null ? fullTag : tag) + "/";
-                    count = headsById.values().stream()
-                        .filter(h -> h.tags().stream().anyMatch(t -> t.startsWith(prefix)))
-                        .count();
-                } else {
-                    count = headsById.values().stream()
-                        .filter(h -> h.tags().contains(fullTag))
-                        .count();
-                }
-
-                List<String> lore = new ArrayList<>();
-                lore.add(ChatColor.GRAY + "" + count + " heads");
-                lore.add("");
-                if (hasChildren) {
-                    lore.add(ChatColor.YELLOW + "Click to view subtags");
-                } else {
-                    lore.add(ChatColor.YELLOW + "Click to browse");
-                }
-                meta.setLore(lore);
+                meta.displayName(line(node.name, NamedTextColor.GOLD));
+                meta.lore(List.of(
+                    line(node.subtreeCount() + " heads", NamedTextColor.GRAY),
+                    Component.empty(),
+                    line(node.hasChildren() ? "Click to view subtags" : "Click to browse", NamedTextColor.YELLOW)));
                 item.setItemMeta(meta);
             }
-            inv.setItem(9 + i, item);
+            slots[9 + i] = item;
         }
 
-        inv.setItem(45, createNavigationArrow("Previous Page", pag.hasPrev()));
-        inv.setItem(49, createCloseButton());
-        inv.setItem(53, createNavigationArrow("Next Page", pag.hasNext()));
+        slots[45] = createNavigationArrow("Previous Page", pag.hasPrev());
+        slots[49] = createCloseButton();
+        slots[53] = createNavigationArrow("Next Page", pag.hasNext());
 
-        player.openInventory(inv);
-    }
-
-    /**
-     * Get top-level tags for the root tag menu.
-     * For hierarchical tags like "alphabet/oak", returns "alphabet".
-     * For flat tags like "storage", returns "storage".
-     */
-    private List<String> getTopLevelTags() {
-        Set<String> seen = new HashSet<>();
-        List<String> result = new ArrayList<>();
-
-        for (String tag : firstHeadByTag.keySet()) {
-            int slashIndex = tag.indexOf('/');
-            String topLevel = slashIndex > 0 ? tag.substring(0, slashIndex) : tag;
-            if (seen.add(topLevel)) {
-                result.add(topLevel);
-            }
-        }
-
-        // Sort alphabetically
-        result.sort(String::compareToIgnoreCase);
-
-        // Move "first" tags to beginning (in reverse order so first in config = first in list)
-        for (int i = tagOrderFirst.size() - 1; i >= 0; i--) {
-            String tag = tagOrderFirst.get(i);
-            if (result.remove(tag)) {
-                result.add(0, tag);
-            }
-        }
-
-        // Move "last" tags to end
-        for (String tag : tagOrderLast) {
-            if (result.remove(tag)) {
-                result.add(tag);
-            }
-        }
-
-        return result;
+        return new ComposedMenu(holder, title, slots);
     }
 
     void handleCatalogClick(Player player, CatalogMenuHolder holder, int slot, ClickType clickType) {
@@ -468,7 +577,7 @@ final class HeadMenus {
         switch (slot) {
             case 3 -> openTagListMenu(player, 0);
             case 45 -> { if (pag.hasPrev()) openCatalogMenu(player, pag.page() - 1, holder.getSearchQuery(), holder.getTagFilter()); }
-            case 49 -> player.closeInventory();
+            case 49 -> closeMenu(player);
             case 53 -> { if (pag.hasNext()) openCatalogMenu(player, pag.page() + 1, holder.getSearchQuery(), holder.getTagFilter()); }
             default -> {
                 if (slot >= 9 && slot <= 44) {
@@ -477,10 +586,10 @@ final class HeadMenus {
                     if (index < displayed.size()) {
                         HeadDef head = displayed.get(index);
                         if (clickType.isRightClick() && player.hasPermission("headsmith.admin")) {
-                            ItemStack item = headItemMaker.apply(head.id(), 1);
+                            ItemStack item = headItem(head.id(), 1);
                             giveToInventoryOrDrop(player, item);
                             player.sendMessage(ChatColor.GREEN + "Gave you 1x " +
-                                ChatColor.stripColor(color(head.name())));
+                                head.plainName());
                         } else {
                             openHeadDetailMenu(player, head, holder.getPage(), holder.getSearchQuery());
                         }
@@ -496,7 +605,9 @@ final class HeadMenus {
                 // Back button - navigate up the stack or return to catalog
                 List<String> stack = holder.getNavigationStack();
                 if (stack.isEmpty()) {
-                    openCatalogMenu(player, holder.getCatalogReturnPage(), holder.getCatalogReturnSearchQuery());
+                    if (!resumeCatalogMenu(player)) {
+                        openCatalogMenu(player, holder.getCatalogReturnPage(), holder.getCatalogReturnSearchQuery());
+                    }
                 } else {
                     String prevHeadId = stack.get(stack.size() - 1);
                     List<String> newStack = new ArrayList<>(stack.subList(0, stack.size() - 1));
@@ -509,12 +620,13 @@ final class HeadMenus {
                     }
                 }
             }
+            case 6 -> openUsedInMenu(player, new IngredientSpec(null, holder.getHeadDef().id()), 0);
             case 8 -> {
                 if (player.hasPermission("headsmith.admin")) {
-                    ItemStack head = headItemMaker.apply(holder.getHeadDef().id(), 1);
+                    ItemStack head = headItem(holder.getHeadDef().id(), 1);
                     giveToInventoryOrDrop(player, head);
                     player.sendMessage(ChatColor.GREEN + "Gave you 1x " +
-                        ChatColor.stripColor(color(holder.getHeadDef().name())));
+                        holder.getHeadDef().plainName());
                 } else {
                     player.sendMessage(ChatColor.RED + "You don't have permission to do that.");
                 }
@@ -536,7 +648,7 @@ final class HeadMenus {
         }
     }
 
-    void handleStonecutterSelectClick(Player player, StonecutterSelectMenuHolder holder, int slot) {
+    void handleStonecutterSelectClick(Player player, StonecutterSelectMenuHolder holder, int slot, ClickType clickType) {
         List<HeadStonecutterRecipe> recipes = holder.getAvailableRecipes();
         int totalRecipes = (int) headStonecutterRecipes.stream()
             .filter(r -> r.inputHeadId().equals(holder.getInputHeadId()))
@@ -545,46 +657,81 @@ final class HeadMenus {
 
         switch (slot) {
             case 45 -> { if (pag.hasPrev()) openStonecutterSelectMenu(player, holder.getInputHeadId(), pag.page() - 1); }
-            case 48 -> player.closeInventory();
+            case 48 -> closeMenu(player);
             case 53 -> { if (pag.hasNext()) openStonecutterSelectMenu(player, holder.getInputHeadId(), pag.page() + 1); }
             default -> {
                 if (slot >= 0 && slot < 45 && slot < recipes.size()) {
                     HeadStonecutterRecipe recipe = recipes.get(slot);
 
-                    int inputSlot = -1;
-                    for (int i = 0; i < player.getInventory().getSize(); i++) {
-                        ItemStack invItem = player.getInventory().getItem(i);
-                        if (invItem != null && invItem.getType() == Material.PLAYER_HEAD) {
-                            String itemHeadId = getPdcString(invItem, pdcHeadIdKey).orElse(null);
-                            if (holder.getInputHeadId().equals(itemHeadId)) {
-                                inputSlot = i;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (inputSlot == -1) {
+                    // Shift-click crafts every input head carried, otherwise just one
+                    int crafts = consumeInputHeads(player, holder.getInputHeadId(), clickType.isShiftClick() ? Integer.MAX_VALUE : 1);
+                    if (crafts == 0) {
                         player.sendMessage(ChatColor.RED + "You need the input head in your inventory to craft this.");
                         return;
                     }
 
-                    ItemStack inputItem = player.getInventory().getItem(inputSlot);
-                    if (inputItem.getAmount() > 1) {
-                        inputItem.setAmount(inputItem.getAmount() - 1);
-                    } else {
-                        player.getInventory().setItem(inputSlot, null);
+                    int total = crafts * recipe.amount();
+                    ItemStack result = headItem(recipe.outputHeadId(), 1);
+                    int maxStack = result.getMaxStackSize();
+                    ItemStack[] stacks = new ItemStack[(total + maxStack - 1) / maxStack];
+                    for (int i = 0; i < stacks.length; i++) {
+                        stacks[i] = result.asQuantity(Math.min(maxStack, total - i * maxStack));
                     }
+                    giveToInventoryOrDrop(player, stacks);
 
-                    ItemStack result = headItemMaker.apply(recipe.outputHeadId(), recipe.amount());
-                    giveToInventoryOrDrop(player, result);
-
-                    player.sendMessage(ChatColor.GREEN + "Crafted " + recipe.amount() + "x " + getHeadName(recipe.outputHeadId()));
+                    player.sendMessage(ChatColor.GREEN + "Crafted " + total + "x " + getHeadName(recipe.outputHeadId()));
                     player.playSound(player.getLocation(), Sound.UI_STONECUTTER_TAKE_RESULT, 1.0f, 1.0f);
                 }
             }
         }
     }
 
+    /** Take up to {@code max} of the head from the player's inventory in one pass; returns how many were taken. */
+    private int consumeInputHeads(Player player, String headId, int max) {
+        ItemStack[] contents = player.getInventory().getStorageContents();
+        int taken = 0;
+        for (int i = 0; i < contents.length && taken < max; i++) {
+            ItemStack item = contents[i];
+            if (item == null || item.getType() != Material.PLAYER_HEAD) continue;
+            if (!headId.equals(getPdcString(item, pdcHeadIdKey).orElse(null))) continue;
+
+            int take = Math.min(item.getAmount(), max - taken);
+            taken += take;
+            if (take == item.getAmount()) {
+                player.getInventory().setItem(i, null);
+            } else {
+                item.setAmount(item.getAmount() - take);
+                player.getInventory().setItem(i, item);
+            }
+        }
+        return taken;
+    }
+
+    void handleUsedInClick(Player player, UsedInMenuHolder holder, int slot) {
+        Pagination pag = Pagination.of(holder.getPage(), holder.getTotalHeads(), HEADS_PER_PAGE);
+        IngredientSpec ingredient = holder.getIngredient();
+
+        switch (slot) {
+            case 0 -> {
+                HeadDef subject = ingredient.headId != null ? headsById.get(ingredient.headId) : null;
+                if (subject != null) openHeadDetailMenu(player, subject, 0, null);
+            }
+            case 45 -> { if (pag.hasPrev()) openUsedInMenu(player, ingredient, pag.page() - 1); }
+            case 49 -> closeMenu(player);
+            case 53 -> { if (pag.hasNext()) openUsedInMenu(player, ingredient, pag.page() + 1); }
+            default -> {
+                if (slot >= 9 && slot <= 44) {
+                    int index = slot - 9;
+                    List<String> displayed = holder.getDisplayedHeadIds();
+                    if (index < displayed.size()) {
+                        HeadDef head = headsById.get(displayed.get(index));
+                        if (head != null) openHeadDetailMenu(player, head, 0, null);
+                    }
+                }
+            }
+        }
+    }
+
     void handleTagListClick(Player player, TagListMenuHolder holder, int slot) {
         Pagination pag = Pagination.of(holder.getPage(), holder.getTotalTags(), HEADS_PER_PAGE);
         String parentTag = holder.getParentTag();
@@ -593,13 +740,15 @@ final class HeadMenus {
             case 0 -> {
                 // Back button: go to parent level or catalog
                 if (parentTag != null) {
-                    openTagListMenu(player, 0, null);  // Back to root tag list
+                    int slash = parentTag.lastIndexOf('/');
+                    openTagListMenu(player, 0, slash > 0 ? parentTag.substring(0, slash) : null);
                 } else {
                     openCatalogMenu(player, 0, null);  // Back to catalog
                 }
             }
+            case 8 -> { if (parentTag != null) openCatalogMenu(player, 0, null, parentTag); }
             case 45 -> { if (pag.hasPrev()) openTagListMenu(player, pag.page() - 1, parentTag); }
-            case 49 -> player.closeInventory();
+            case 49 -> closeMenu(player);
             case 53 -> { if (pag.hasNext()) openTagListMenu(player, pag.page() + 1, parentTag); }
             default -> {
                 if (slot >= 9 && slot <= 44) {
@@ -610,7 +759,7 @@ final class HeadMenus {
                         String fullTag = parentTag != null ? parentTag + "/" + clickedTag : clickedTag;
 
                         // Check if this tag has children (is a parent tag)
-                        if (tagChildren.containsKey(fullTag)) {
+                        if (headIndex.tagTree().node(fullTag).map(TagTree.Node::hasChildren).orElse(false)) {
                             // Drill down into subtags
                             openTagListMenu(player, 0, fullTag);
                         } else {
@@ -626,59 +775,58 @@ final class HeadMenus {
     // Display helpers
 
     private ItemStack makeHeadDisplayItem(HeadDef def) {
-        ItemStack item = headItemMaker.apply(def.id(), 1);
+        ItemStack item = headItem(def.id(), 1);
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
-            appendLore(meta, "", ChatColor.YELLOW + "Click to view details");
+            appendLore(meta, Component.empty(), line("Click to view details", NamedTextColor.YELLOW));
             item.setItemMeta(meta);
         }
         return item;
     }
 
-    private ItemStack createIngredientDisplay(IngredientSpec spec, HeadDetailMenuHolder holder, int slot) {
+    private ItemStack createIngredientDisplay(IngredientSpec spec, Map<Integer, String> clickable, int slot) {
         if (spec.material != null) return new ItemStack(spec.material, 1);
         if (spec.headId != null) {
-            ItemStack item = headItemMaker.apply(spec.headId, 1);
+            ItemStack item = headItem(spec.headId, 1);
             ItemMeta meta = item.getItemMeta();
             if (meta != null) {
-                appendLore(meta, "", ChatColor.YELLOW + "Click to view details");
+                appendLore(meta, Component.empty(), line("Click to view details", NamedTextColor.YELLOW));
                 item.setItemMeta(meta);
             }
-            holder.getClickableHeadSlots().put(slot, spec.headId);
+            clickable.put(slot, spec.headId);
             return item;
         }
         return new ItemStack(Material.BARRIER);
     }
 
     private ItemStack getPatternCell(String patternRow, int col, Map<Character, IngredientSpec> key,
-                                     ItemStack emptySlot, HeadDetailMenuHolder holder, int slot) {
+                                     ItemStack emptySlot, Map<Integer, String> clickable, int slot) {
         if (col >= patternRow.length()) return emptySlot;
         char ch = patternRow.charAt(col);
         if (ch == ' ') return emptySlot;
         IngredientSpec ing = key.get(ch);
-        return ing != null ? createIngredientDisplay(ing, holder, slot) : emptySlot;
+        return ing != null ? createIngredientDisplay(ing, clickable, slot) : emptySlot;
     }
 
-    private void displayLoreSection(Inventory inv, HeadDef head) {
+    private void displayLoreSection(ItemStack[] slots, HeadDef head) {
         ItemStack infoPane = new ItemStack(Material.LIME_STAINED_GLASS_PANE);
         ItemMeta meta = infoPane.getItemMeta();
         if (meta != null) {
-            meta.setDisplayName(ChatColor.GREEN + "Description");
-            List<String> lore = new ArrayList<>();
-            for (String line : head.lore()) lore.add(color(line));
-            if (lore.isEmpty()) lore.add(ChatColor.GRAY + "(No description)");
-            lore.add("");
-            lore.add(ChatColor.DARK_GRAY + "ID: " + head.id());
-            meta.setLore(lore);
+            meta.displayName(line("Description", NamedTextColor.GREEN));
+            List<Component> lore = new ArrayList<>(head.text().lore());
+            if (lore.isEmpty()) lore.add(line("(No description)", NamedTextColor.GRAY));
+            lore.add(Component.empty());
+            lore.add(line("ID: " + head.id(), NamedTextColor.DARK_GRAY));
+            meta.lore(lore);
             infoPane.setItemMeta(meta);
         }
-        for (int i = 10; i <= 16; i++) inv.setItem(i, infoPane.clone());
+        for (int i = 10; i <= 16; i++) slots[i] = infoPane;
     }
 
-    private void displayShapedRecipe(Inventory inv, HeadDetailMenuHolder holder, HeadDef head,
+    private void displayShapedRecipe(ItemStack[] slots, Map<Integer, String> clickable, HeadDef head,
                                       CraftShapedRecipeDef recipe, int row) {
         int baseSlot = row * 9;
-        inv.setItem(baseSlot, createRecipeLabel("Shaped", "3x3 crafting grid"));
+        slots[baseSlot] = createRecipeLabel("Shaped", "3x3 crafting grid");
 
         ItemStack emptySlot = createEmptySlot();
 
@@ -688,45 +836,55 @@ final class HeadMenus {
             for (int c = 0; c < 3; c++) {
                 int slot = rowSlot + 2 + c;
                 if (slot < 54) {
-                    inv.setItem(slot, getPatternCell(patternRowStr, c, recipe.key, emptySlot, holder, slot));
+                    slots[slot] = getPatternCell(patternRowStr, c, recipe.key, emptySlot, clickable, slot);
                 }
             }
         }
 
-        inv.setItem(baseSlot + 6, createRecipeArrow());
-        inv.setItem(baseSlot + 7, headItemMaker.apply(head.id(), recipe.amount));
+        slots[baseSlot + 6] = createRecipeArrow();
+        slots[baseSlot + 7] = headItem(head.id(), recipe.amount);
     }
 
-    private void displayShapelessRecipe(Inventory inv, HeadDetailMenuHolder holder, HeadDef head,
+    private void displayShapelessRecipe(ItemStack[] slots, Map<Integer, String> clickable, HeadDef head,
                                         CraftShapelessRecipeDef recipe, int row) {
         int baseSlot = row * 9;
-        inv.setItem(baseSlot, createRecipeLabel("Shapeless", "Any arrangement"));
+        slots[baseSlot] = createRecipeLabel("Shapeless", "Any arrangement");
 
         int col = 2;
         for (int i = 0; i < Math.min(recipe.ingredients.size(), 5); i++) {
             int slot = baseSlot + col + i;
-            inv.setItem(slot, createIngredientDisplay(recipe.ingredients.get(i), holder, slot));
+            slots[slot] = createIngredientDisplay(recipe.ingredients.get(i), clickable, slot);
         }
 
-        inv.setItem(baseSlot + 7, createRecipeArrow());
-        inv.setItem(baseSlot + 8, headItemMaker.apply(head.id(), recipe.amount));
+        slots[baseSlot + 7] = createRecipeArrow();
+        slots[baseSlot + 8] = headItem(head.id(), recipe.amount);
     }
 
-    private void displayStonecutterRecipe(Inventory inv, HeadDetailMenuHolder holder, HeadDef head,
+    private void displayStonecutterRecipe(ItemStack[] slots, Map<Integer, String> clickable, HeadDef head,
                                           StonecutterRecipeDef recipe, int row) {
         int baseSlot = row * 9;
-        inv.setItem(baseSlot, createRecipeLabel("Stonecutter", "Use a stonecutter"));
+        slots[baseSlot] = createRecipeLabel("Stonecutter", "Use a stonecutter");
         int inputSlot = baseSlot + 2;
-        inv.setItem(inputSlot, createIngredientDisplay(recipe.input(), holder, inputSlot));
-        inv.setItem(baseSlot + 4, createRecipeArrow());
-        inv.setItem(baseSlot + 6, headItemMaker.apply(head.id(), recipe.amount()));
+        slots[inputSlot] = createIngredientDisplay(recipe.input(), clickable, inputSlot);
+        slots[baseSlot + 4] = createRecipeArrow();
+        slots[baseSlot + 6] = headItem(head.id(), recipe.amount());
     }
 
     // Helpers
 
+    /** A lore or name line in one colour, not italic. */
+    private static Component line(String text, NamedTextColor color) {
+        return Component.text(text, color).decoration(TextDecoration.ITALIC, false);
+    }
+
+    /** A coloured label followed by a white value. */
+    private static Component labelled(String label, NamedTextColor color, String value) {
+        return line(label, color).append(Component.text(value, NamedTextColor.WHITE));
+    }
+
     private String getHeadName(String headId) {
         HeadDef head = headsById.get(headId);
-        return head != null ? ChatColor.stripColor(color(head.name())) : headId;
+        return head != null ? head.plainName() : headId;
     }
 
     private static String truncateTitle(String title) {
@@ -737,18 +895,20 @@ final class HeadMenus {
         return title.length() > maxLen ? title.substring(0, maxLen) : title;
     }
 
-    private static void appendLore(ItemMeta meta, String... lines) {
-        List<String> lore = meta.getLore() != null ? new ArrayList<>(meta.getLore()) : new ArrayList<>();
-        for (String line : lines) lore.add(line);
-        meta.setLore(lore);
+    private static void appendLore(ItemMeta meta, Component... lines) {
+        List<Component> current = meta.lore();
+        List<Component> lore = new ArrayList<>(current != null ? current.size() + lines.length : lines.length);
+        if (current != null) lore.addAll(current);
+        lore.addAll(Arrays.asList(lines));
+        meta.lore(lore);
     }
 
-    private static ItemStack makeItem(Material material, String name, ChatColor color, String... lore) {
+    private static ItemStack makeItem(Material material, String name, NamedTextColor color, Component... lore) {
         ItemStack item = new ItemStack(material);
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
-            meta.setDisplayName((color != null ? color : ChatColor.WHITE) + name);
-            if (lore.length > 0) meta.setLore(List.of(lore));
+            meta.displayName(line(name, color != null ? color : NamedTextColor.WHITE));
+            if (lore.length > 0) meta.lore(List.of(lore));
             item.setItemMeta(meta);
         }
         return item;
@@ -763,38 +923,38 @@ final class HeadMenus {
     }
 
     private static ItemStack createCloseButton() {
-        return makeItem(Material.BARRIER, "Close", ChatColor.RED);
+        return makeItem(Material.BARRIER, "Close", NamedTextColor.RED);
     }
 
     private static ItemStack createRecipeArrow() {
-        return makeItem(Material.ARROW, "=>", ChatColor.WHITE);
+        return makeItem(Material.ARROW, "=>", NamedTextColor.WHITE);
     }
 
     private static ItemStack createBackButton() {
-        return makeItem(Material.ARROW, "Back to Catalog", ChatColor.YELLOW);
+        return makeItem(Material.ARROW, "Back to Catalog", NamedTextColor.YELLOW);
     }
 
     private static ItemStack createGiveButton() {
-        return makeItem(Material.EMERALD, "Give Head", ChatColor.GREEN,
-            ChatColor.GRAY + "Admin only", ChatColor.GRAY + "Click to receive this head");
+        return makeItem(Material.EMERALD, "Give Head", NamedTextColor.GREEN,
+            line("Admin only", NamedTextColor.GRAY), line("Click to receive this head", NamedTextColor.GRAY));
     }
 
     private static ItemStack createSearchButton() {
-        return makeItem(Material.COMPASS, "Search Heads", ChatColor.AQUA,
-            ChatColor.GRAY + "Use " + ChatColor.WHITE + "/heads search <query>",
-            ChatColor.GRAY + "to filter heads by name");
+        return makeItem(Material.COMPASS, "Search Heads", NamedTextColor.AQUA,
+            line("Use ", NamedTextColor.GRAY).append(Component.text("/heads search <query>", NamedTextColor.WHITE)),
+            line("to filter heads by name", NamedTextColor.GRAY));
     }
 
     private static ItemStack createPageItem(Pagination pag) {
         return createPageItem(pag, null);
     }
 
-    private static ItemStack createPageItem(Pagination pag, String extraInfo) {
+    private static ItemStack createPageItem(Pagination pag, Component extraInfo) {
         ItemStack item = new ItemStack(Material.NAME_TAG);
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
-            meta.setDisplayName(ChatColor.GOLD + "Page " + (pag.page() + 1) + " / " + pag.totalPages());
-            if (extraInfo != null) meta.setLore(List.of(extraInfo));
+            meta.displayName(line("Page " + (pag.page() + 1) + " / " + pag.totalPages(), NamedTextColor.GOLD));
+            if (extraInfo != null) meta.lore(List.of(extraInfo));
             item.setItemMeta(meta);
         }
         return item;
@@ -802,39 +962,49 @@ final class HeadMenus {
 
     private static ItemStack createNavigationArrow(String name, boolean enabled) {
         if (!enabled) {
-            return makeItem(Material.GRAY_STAINED_GLASS_PANE, name, ChatColor.DARK_GRAY,
-                ChatColor.GRAY + "No more pages");
+            return makeItem(Material.GRAY_STAINED_GLASS_PANE, name, NamedTextColor.DARK_GRAY,
+                line("No more pages", NamedTextColor.GRAY));
         }
-        return makeItem(Material.ARROW, name, ChatColor.GREEN);
+        return makeItem(Material.ARROW, name, NamedTextColor.GREEN);
     }
 
     private static ItemStack createInfoItem(int totalHeads, int currentPage, int totalPages, String searchQuery, String tagFilter) {
-        List<String> lore = new ArrayList<>();
-        if (tagFilter != null) lore.add(ChatColor.GOLD + "Tag: " + ChatColor.WHITE + tagFilter);
-        if (searchQuery != null) lore.add(ChatColor.AQUA + "Search: " + ChatColor.WHITE + searchQuery);
-        lore.add(ChatColor.GRAY + "Total heads: " + ChatColor.WHITE + totalHeads);
-        lore.add(ChatColor.GRAY + "Page: " + ChatColor.WHITE + (currentPage + 1) + "/" + totalPages);
-        return makeItem(Material.BOOK, "Head Catalog", ChatColor.GOLD, lore.toArray(String[]::new));
+        List<Component> lore = new ArrayList<>();
+        if (tagFilter != null) lore.add(labelled("Tag: ", NamedTextColor.GOLD, tagFilter));
+        if (searchQuery != null) lore.add(labelled("Search: ", NamedTextColor.AQUA, searchQuery));
+        lore.add(labelled("Total heads: ", NamedTextColor.GRAY, String.valueOf(totalHeads)));
+        lore.add(labelled("Page: ", NamedTextColor.GRAY, (currentPage + 1) + "/" + totalPages));
+        return makeItem(Material.BOOK, "Head Catalog", NamedTextColor.GOLD, lore.toArray(Component[]::new));
+    }
+
+    private static ItemStack createUsedInButton(int uses) {
+        return makeItem(Material.CRAFTING_TABLE, "Used In", NamedTextColor.AQUA,
+            line(uses + " heads use this in a recipe", NamedTextColor.GRAY), line("Click to view", NamedTextColor.YELLOW));
     }
 
     private static ItemStack createTagsButton() {
-        return makeItem(Material.NAME_TAG, "Browse by Tag", ChatColor.GOLD,
-            ChatColor.GRAY + "Click to browse heads by category");
+        return makeItem(Material.NAME_TAG, "Browse by Tag", NamedTextColor.GOLD,
+            line("Click to browse heads by category", NamedTextColor.GRAY));
     }
 
     private static ItemStack createBackToCatalogButton() {
-        return makeItem(Material.ARROW, "Back to Catalog", ChatColor.YELLOW);
+        return makeItem(Material.ARROW, "Back to Catalog", NamedTextColor.YELLOW);
     }
 
     private static ItemStack createBackToTagsButton() {
-        return makeItem(Material.ARROW, "Back to Tags", ChatColor.YELLOW);
+        return makeItem(Material.ARROW, "Back to Tags", NamedTextColor.YELLOW);
+    }
+
+    private static ItemStack createBrowseAllButton(int heads) {
+        return makeItem(Material.BOOKSHELF, "Browse All", NamedTextColor.AQUA,
+            line(heads + " heads in this tag and its subtags", NamedTextColor.GRAY), line("Click to browse", NamedTextColor.YELLOW));
     }
 
     private static ItemStack createPageItemPaper(Pagination pag) {
         ItemStack item = new ItemStack(Material.PAPER);
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
-            meta.setDisplayName(ChatColor.GOLD + "Page " + (pag.page() + 1) + "/" + pag.totalPages());
+            meta.displayName(line("Page " + (pag.page() + 1) + "/" + pag.totalPages(), NamedTextColor.GOLD));
             item.setItemMeta(meta);
         }
         return item;
@@ -847,8 +1017,8 @@ final class HeadMenus {
             default -> Material.BOOK;
         };
         if (description != null) {
-            return makeItem(mat, type + " Recipe", ChatColor.GOLD, ChatColor.GRAY + description);
+            return makeItem(mat, type + " Recipe", NamedTextColor.GOLD, line(description, NamedTextColor.GRAY));
         }
-        return makeItem(mat, type + " Recipe", ChatColor.GOLD);
+        return makeItem(mat, type + " Recipe", NamedTextColor.GOLD);
     }
 }
@@ -1,5 +1,10 @@
 package anon.def9a2a4.headsmith;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.configuration.ConfigurationSection;
@@ -7,11 +12,18 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
@@ -21,9 +33,7 @@ import static anon.def9a2a4.headsmith.HeadUtils.asInt;
 
 record HeadDef(
     String id,
-    String textureBase64,
-    String textureUrl,
-    String textureId,
+    TextureRef texture,
     String name,
     List<String> lore,
     Set<String> tags,
@@ -31,23 +41,260 @@ record HeadDef(
     List<CraftShapedRecipeDef> shaped,
     List<CraftShapelessRecipeDef> shapeless,
     List<StonecutterRecipeDef> stonecutter,
-    List<DropRule> dropRules
-) {}
+    List<DropRule> dropRules,
+    HeadText text
+) {
+    HeadDef(String id, TextureRef texture, String name, List<String> lore, Set<String> tags,
+            Set<HeadProperty> properties, List<CraftShapedRecipeDef> shaped, List<CraftShapelessRecipeDef> shapeless,
+            List<StonecutterRecipeDef> stonecutter, List<DropRule> dropRules) {
+        this(id, texture, name, lore, tags, properties, shaped, shapeless, stonecutter, dropRules, HeadText.parse(name, lore));
+    }
+
+    /** The name without colour codes, for search, titles and messages. */
+    String plainName() { return text.plainName(); }
+
+    String textureId() { return texture.id(); }
+    String textureUrl() { return texture.url(); }
+    String textureBase64() { return texture.base64(); }
+}
+
+/**
+ * A head's name and lore translated once from their {@code &} colour codes, so items and menus
+ * never re-parse them. Immutable, so it's safe to share with the menu threads.
+ *
+ * <p>Head items keep using the {@code §} strings: items already in players' hands were made from
+ * them, and a name serialized any other way would stop those matching recipes that take the head
+ * as an exact ingredient.
+ */
+record HeadText(Component name, List<Component> lore, String plainName, String legacyName, List<String> legacyLore) {
+
+    static HeadText parse(String name, List<String> lore) {
+        Component displayName = parseLine(name);
+        List<Component> loreLines = new ArrayList<>(lore.size());
+        List<String> legacyLines = new ArrayList<>(lore.size());
+        for (String line : lore) {
+            loreLines.add(parseLine(line));
+            legacyLines.add(ChatColor.translateAlternateColorCodes('&', line));
+        }
+        return new HeadText(displayName, List.copyOf(loreLines),
+            PlainTextComponentSerializer.plainText().serialize(displayName),
+            ChatColor.translateAlternateColorCodes('&', name), List.copyOf(legacyLines));
+    }
+
+    // As on items: text that starts with a colour code isn't italic, plain text is
+    private static Component parseLine(String line) {
+        Component component = LegacyComponentSerializer.legacyAmpersand().deserialize(line);
+        if (line.length() > 1 && line.charAt(0) == '&' && ChatColor.getByChar(line.charAt(1)) != null) {
+            component = component.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+        }
+        return component;
+    }
+}
+
+/**
+ * Compact skin texture reference. Skin URLs are a constant prefix plus a hex hash, so only
+ * the 32 hash bytes are kept and the texture id, URL and base64 value are rebuilt on demand.
+ * Equality is by texture id, so a ref built from a skull's URL finds the head it belongs to.
+ * Ids that aren't lowercase hex (unusual custom textures) are kept as-is, and so is a base64
+ * value carrying more than the skin URL (metadata, capes), which the rebuilt form would drop.
+ */
+final class TextureRef {
+    static final String URL_PREFIX = "http://textures.minecraft.net/texture/";
+    private static final int HASH_BYTES = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] hash;        // null when the id isn't hex
+    private final byte hexLength;     // ids drop leading zeros, so remember the digit count
+    private final String rawId;       // only when hash == null
+    private final String urlPrefix;   // null for the standard prefix
+    private final String rawBase64;   // null when base64() rebuilds the original exactly
+
+    private TextureRef(byte[] hash, int hexLength, String rawId, String urlPrefix, String rawBase64) {
+        this.hash = hash;
+        this.hexLength = (byte) hexLength;
+        this.rawId = rawId;
+        this.urlPrefix = urlPrefix;
+        this.rawBase64 = rawBase64;
+    }
+
+    static Optional<TextureRef> ofUrl(String url) {
+        return HeadUtils.textureIdFromSkinUrl(url).map(id -> {
+            String prefix = url.substring(0, url.length() - id.length());
+            return of(id, prefix.equals(URL_PREFIX) ? null : prefix);
+        });
+    }
+
+    static TextureRef ofId(String textureId) {
+        return of(textureId, null);
+    }
+
+    private static TextureRef of(String id, String urlPrefix) {
+        byte[] hash = parseHex(id);
+        return hash != null
+            ? new TextureRef(hash, id.length(), null, urlPrefix, null)
+            : new TextureRef(null, 0, id, urlPrefix, null);
+    }
+
+    /** This ref, remembering {@code base64} as its value if the rebuilt one would differ. */
+    TextureRef withBase64(String base64) {
+        if (base64 == null || base64.equals(base64())) return this;
+        return new TextureRef(hash, hexLength, rawId, urlPrefix, base64);
+    }
+
+    /** The original base64 value when it isn't the plain skin-URL form, else null. */
+    String originalBase64() {
+        return rawBase64;
+    }
+
+    private static byte[] parseHex(String id) {
+        int len = id.length();
+        if (len == 0 || len > HASH_BYTES * 2) return null;
+        byte[] out = new byte[HASH_BYTES];
+        int offset = HASH_BYTES * 2 - len; // left-pad with zero nibbles
+        for (int i = 0; i < len; i++) {
+            char c = id.charAt(i);
+            int nibble;
+            if (c >= '0' && c <= '9') nibble = c - '0';
+            else if (c >= 'a' && c <= 'f') nibble = c - 'a' + 10;
+            else return null;
+            int pos = offset + i;
+            out[pos >> 1] |= (byte) ((pos & 1) == 0 ? nibble << 4 : nibble);
+        }
+        return out;
+    }
+
+    String id() {
+        if (hash == null) return rawId;
+        char[] chars = new char[HASH_BYTES * 2];
+        for (int i = 0; i < HASH_BYTES; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars, chars.length - hexLength, hexLength);
+    }
+
+    String url() {
+        return (urlPrefix != null ? urlPrefix : URL_PREFIX) + id();
+    }
+
+    String base64() {
+        if (rawBase64 != null) return rawBase64;
+        String json = "{\"textures\":{\"SKIN\":{\"url\":\"" + url() + "\"}}}";
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TextureRef other)) return false;
+        if (hash != null) return other.hash != null && hexLength == other.hexLength && Arrays.equals(hash, other.hash);
+        return other.hash == null && rawId.equals(other.rawId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash != null ? Arrays.hashCode(hash) : rawId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id();
+    }
+}
 
 record HeadStonecutterRecipe(String inputHeadId, String outputHeadId, int amount) {}
 
+/**
+ * Reverse recipe graph: for each ingredient (a head or a material), the heads whose crafting or
+ * stonecutter recipes use it, in catalog order. Built once per catalog so a "used in" lookup
+ * costs only as much as its result.
+ */
+final class UsageIndex {
+    static final UsageIndex EMPTY = new UsageIndex(Map.of(), Map.of());
+
+    private final Map<String, List<String>> byHead;
+    private final Map<Material, List<String>> byMaterial;
+
+    private UsageIndex(Map<String, List<String>> byHead, Map<Material, List<String>> byMaterial) {
+        this.byHead = byHead;
+        this.byMaterial = byMaterial;
+    }
+
+    static UsageIndex build(Collection<HeadDef> heads) {
+        Map<String, Set<String>> byHead = new HashMap<>();
+        Map<Material, Set<String>> byMaterial = new EnumMap<>(Material.class);
+        for (HeadDef head : heads) {
+            for (CraftShapedRecipeDef r : head.shaped()) {
+                for (IngredientSpec spec : r.key.values()) add(byHead, byMaterial, spec, head.id());
+            }
+            for (CraftShapelessRecipeDef r : head.shapeless()) {
+                for (IngredientSpec spec : r.ingredients) add(byHead, byMaterial, spec, head.id());
+            }
+            for (StonecutterRecipeDef r : head.stonecutter()) {
+                add(byHead, byMaterial, r.input(), head.id());
+            }
+        }
+
+        Map<String, List<String>> headUses = new HashMap<>();
+        byHead.forEach((k, v) -> headUses.put(k, List.copyOf(v)));
+        Map<Material, List<String>> materialUses = new EnumMap<>(Material.class);
+        byMaterial.forEach((k, v) -> materialUses.put(k, List.copyOf(v)));
+        return new UsageIndex(headUses, materialUses);
+    }
+
+    private static void add(Map<String, Set<String>> byHead, Map<Material, Set<String>> byMaterial,
+                            IngredientSpec spec, String outputHeadId) {
+        if (spec.headId != null) {
+            byHead.computeIfAbsent(spec.headId, k -> new LinkedHashSet<>()).add(outputHeadId);
+        } else if (spec.material != null) {
+            byMaterial.computeIfAbsent(spec.material, k -> new LinkedHashSet<>()).add(outputHeadId);
+        }
+    }
+
+    /** Ids of the heads that use this ingredient in a recipe. */
+    List<String> usesOf(IngredientSpec ingredient) {
+        List<String> out = null;
+        if (ingredient.headId != null) out = byHead.get(ingredient.headId);
+        else if (ingredient.material != null) out = byMaterial.get(ingredient.material);
+        return out != null ? out : List.of();
+    }
+}
+
 enum ToolCategory {
     PICKAXE, AXE, SHOVEL, HOE, SHEARS;
 
+    private static final ToolCategory[] VALUES = values();
+    // Built once from material names so block breaks never do string checks
+    private static final Map<Material, ToolCategory> BY_MATERIAL = buildLookup();
+
+    private static Map<Material, ToolCategory> buildLookup() {
+        Map<Material, ToolCategory> map = new EnumMap<>(Material.class);
+        for (Material mat : Material.values()) {
+            String name = mat.name();
+            if (name.endsWith("_PICKAXE")) map.put(mat, PICKAXE);
+            else if (name.endsWith("_AXE")) map.put(mat, AXE);
+            else if (name.endsWith("_SHOVEL")) map.put(mat, SHOVEL);
+            else if (name.endsWith("_HOE")) map.put(mat, HOE);
+            else if (mat == Material.SHEARS) map.put(mat, SHEARS);
+        }
+        return map;
+    }
+
+    /** Returns the tool category for a material, or null if it is not a tool. */
+    static ToolCategory of(Material mat) {
+        return mat == null ? null : BY_MATERIAL.get(mat);
+    }
+
     static Optional<ToolCategory> fromMaterial(Material mat) {
-        if (mat == null) return Optional.empty();
-        String name = mat.name();
-        if (name.endsWith("_PICKAXE")) return Optional.of(PICKAXE);
-        if (name.endsWith("_AXE")) return Optional.of(AXE);
-        if (name.endsWith("_SHOVEL")) return Optional.of(SHOVEL);
-        if (name.endsWith("_HOE")) return Optional.of(HOE);
-        if (mat == Material.SHEARS) return Optional.of(SHEARS);
-        return Optional.empty();
+        return Optional.ofNullable(of(mat));
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+
+    static ToolCategory byOrdinal(int ordinal) {
+        return VALUES[ordinal];
     }
 
     static Optional<ToolCategory> fromString(String s) {
@@ -73,6 +320,77 @@ record DropRule(Optional<Boolean> matchesSilkTouch, Optional<ToolCategory> match
     }
 }
 
+/**
+ * Drop rules of a single head resolved ahead of time into a table indexed by
+ * (silk touch, tool category). Template stacks for each rule are built on the first
+ * break that needs them and cloned afterwards, so breaking a head never evaluates
+ * rules and heads that are never broken never materialize their drops.
+ */
+final class DropTable {
+    private static final int TOOL_SLOTS = ToolCategory.count() + 1; // last slot = no tool
+    private static final ItemStack[] NO_DROPS = new ItemStack[0];
+
+    private final HeadDef def;
+    private final int[] cells;               // rule index per cell; dropRules().size() = drop itself
+    private final ItemStack[][] templates;   // per rule index, built lazily
+
+    private DropTable(HeadDef def, int[] cells) {
+        this.def = def;
+        this.cells = cells;
+        this.templates = new ItemStack[def.dropRules().size() + 1][];
+    }
+
+    static DropTable compile(HeadDef def) {
+        List<DropRule> rules = def.dropRules();
+        int[] cells = new int[2 * TOOL_SLOTS];
+
+        for (int silk = 0; silk < 2; silk++) {
+            for (int slot = 0; slot < TOOL_SLOTS; slot++) {
+                Optional<ToolCategory> tool = slot < ToolCategory.count()
+                    ? Optional.of(ToolCategory.byOrdinal(slot)) : Optional.empty();
+
+                // Implicit fallback when no rule matches: always drop itself
+                int matched = rules.size();
+                for (int i = 0; i < rules.size(); i++) {
+                    if (rules.get(i).matches(silk == 1, tool)) {
+                        matched = i;
+                        break;
+                    }
+                }
+                cells[silk * TOOL_SLOTS + slot] = matched;
+            }
+        }
+        return new DropTable(def, cells);
+    }
+
+    List<ItemStack> drops(boolean silkTouch, ToolCategory tool, BiFunction<String, Integer, ItemStack> headItemMaker) {
+        int slot = tool != null ? tool.ordinal() : TOOL_SLOTS - 1;
+        int rule = cells[(silkTouch ? TOOL_SLOTS : 0) + slot];
+
+        ItemStack[] stacks = templates[rule];
+        if (stacks == null) {
+            stacks = rule < def.dropRules().size()
+                ? toTemplates(def.dropRules().get(rule).toDrops(headItemMaker))
+                : toTemplates(List.of(headItemMaker.apply(def.id(), 1)));
+            templates[rule] = stacks;
+        }
+
+        List<ItemStack> out = new ArrayList<>(stacks.length);
+        for (ItemStack template : stacks) {
+            out.add(template.clone());
+        }
+        return out;
+    }
+
+    private static ItemStack[] toTemplates(List<ItemStack> stacks) {
+        List<ItemStack> out = new ArrayList<>(stacks.size());
+        for (ItemStack stack : stacks) {
+            if (stack != null && stack.getType() != Material.AIR) out.add(stack);
+        }
+        return out.isEmpty() ? NO_DROPS : out.toArray(new ItemStack[0]);
+    }
+}
+
 record ItemSpec(Optional<String> headId, Optional<Material> material, int amount) {
     static ItemSpec fromMap(Map<?, ?> m) {
         String head = m.containsKey("head") ? String.valueOf(m.get("head")) : null;
@@ -117,6 +435,18 @@ final class IngredientSpec {
         }
         return false;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IngredientSpec other)) return false;
+        return material == other.material && Objects.equals(headId, other.headId);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(material) + Objects.hashCode(headId);
+    }
 }
 
 record StonecutterRecipeDef(String id, String outputHeadId, int amount, IngredientSpec input) {}
@@ -361,7 +691,8 @@ final class HeadConfigParser {
 
     static void parseCraftingRecipes(ConfigurationSection recipesSec, String headId,
                                      List<CraftShapedRecipeDef> shapedOut,
-                                     List<CraftShapelessRecipeDef> shapelessOut) {
+                                     List<CraftShapelessRecipeDef> shapelessOut,
+                                     CatalogInterner interner) {
         if (recipesSec == null) return;
         ConfigurationSection craftSec = recipesSec.getConfigurationSection("craft");
         if (craftSec == null) return;
@@ -386,7 +717,7 @@ final class HeadConfigParser {
                     String k = String.valueOf(e.getKey());
                     if (k.length() != 1) continue;
                     if (e.getValue() instanceof Map<?, ?> iv) {
-                        key.put(k.charAt(0), IngredientSpec.fromMap(iv));
+                        key.put(k.charAt(0), interner.ingredient(IngredientSpec.fromMap(iv)));
                     }
                 }
             }
@@ -404,7 +735,7 @@ final class HeadConfigParser {
             if (ingObj instanceof List<?> il) {
                 for (Object o : il) {
                     if (o instanceof Map<?, ?> im) {
-                        ingredients.add(IngredientSpec.fromMap(im));
+                        ingredients.add(interner.ingredient(IngredientSpec.fromMap(im)));
                     }
                 }
             }
@@ -413,7 +744,8 @@ final class HeadConfigParser {
         }
     }
 
-    static List<StonecutterRecipeDef> parseStonecutterRecipes(ConfigurationSection recipesSec, String headId) {
+    static List<StonecutterRecipeDef> parseStonecutterRecipes(ConfigurationSection recipesSec, String headId,
+                                                              CatalogInterner interner) {
         if (recipesSec == null) return List.of();
         List<Map<?, ?>> raw = recipesSec.getMapList("stonecutter");
         if (raw.isEmpty()) return List.of();
@@ -425,7 +757,7 @@ final class HeadConfigParser {
             int amount = asInt(m.get("amount"), 1);
             Object inputObj = m.get("input");
             if (!(inputObj instanceof Map<?, ?> im)) continue;
-            IngredientSpec input = IngredientSpec.fromMap(im);
+            IngredientSpec input = interner.ingredient(IngredientSpec.fromMap(im));
             out.add(new StonecutterRecipeDef(id, headId, amount, input));
         }
         return out;
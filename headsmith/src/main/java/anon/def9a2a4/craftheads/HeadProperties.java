@@ -30,6 +30,7 @@ import org.bukkit.scheduler.BukkitTask;
 
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
@@ -235,14 +236,23 @@ class HeadPropertiesListener implements Listener {
     }
 
     void onHeadBreak(Block block, HeadDef def) {
-        // Remove light block above if present
-        Block above = block.getRelative(0, 1, 0);
-        if (above.getType() == Material.LIGHT) {
-            above.setType(Material.AIR);
+        onHeadsBroken(List.of(block));
+    }
+
+    void onHeadsBroken(List<Block> blocks) {
+        // Remove light blocks above if present
+        for (Block block : blocks) {
+            Block above = block.getRelative(0, 1, 0);
+            if (above.getType() == Material.LIGHT) {
+                above.setType(Material.AIR);
+            }
         }
 
         // Remove from lit candle tracking
-        litCandleLocations.remove(block.getLocation());
+        if (litCandleLocations.isEmpty()) return;
+        for (Block block : blocks) {
+            litCandleLocations.remove(block.getLocation());
+        }
     }
 
     private void lightHead(Block block, Skull skull) {
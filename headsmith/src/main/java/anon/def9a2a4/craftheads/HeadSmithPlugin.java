@@ -7,22 +7,32 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.GameMode;
 import org.bukkit.Sound;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.Skull;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import io.papermc.paper.event.player.PlayerPickBlockEvent;
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.ItemStack;
@@ -34,25 +44,44 @@ import org.bukkit.inventory.StonecuttingRecipe;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.inventory.Recipe;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 import org.bstats.bukkit.Metrics;
+import org.yaml.snakeyaml.error.YAMLException;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static anon.def9a2a4.headsmith.HeadUtils.*;
@@ -61,18 +90,64 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
     private record LoadResult(int loaded, int excluded, List<String> overridden) {}
 
+    private static final int MAX_COMPLETIONS = 50;
+    private static final List<String> ITEM_NAMES = Arrays.stream(Material.values())
+        .filter(m -> m.isItem() && !m.isAir() && !m.isLegacy())
+        .map(m -> m.name().toLowerCase(Locale.ROOT))
+        .sorted()
+        .toList();
+
+    private static final class LoadTally {
+        int loaded;
+        int excluded;
+        final List<String> overridden = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+
+        LoadResult toResult() {
+            return new LoadResult(loaded, excluded, overridden);
+        }
+    }
+
     private final Map<String, HeadDef> headsById = new LinkedHashMap<>();
-    private final Map<String, String> headIdByTextureId = new HashMap<>();
-    private final Map<String, String> firstHeadByTag = new LinkedHashMap<>();
-    private final Map<String, Set<String>> tagChildren = new LinkedHashMap<>(); // parent tag -> child tags
+    private final Map<TextureRef, String> headIdByTextureId = new HashMap<>();
     private final List<HeadStonecutterRecipe> headStonecutterRecipes = new ArrayList<>();
-    private final List<NamespacedKey> registeredRecipeKeys = new ArrayList<>();
+    private final Map<String, List<NamespacedKey>> recipeKeysByHead = new HashMap<>();
     private final List<Recipe> pendingRecipes = new ArrayList<>();
+    private final Map<String, DropTable> dropTablesById = new HashMap<>();
+    private final Map<String, List<String>> headIdsByCustomFile = new HashMap<>();
+    private final Map<String, HeadDef> overriddenHeads = new HashMap<>(); // head id -> definition a custom file replaced
+    private final Map<String, ParsedFile> parsedFiles = new ConcurrentHashMap<>(); // file tag -> last parse
+    private Map<String, String> cachedFileHashes = Map.of(); // file tag -> hash, as last written to disk
+    private final AtomicReference<Map<String, ParsedFile>> pendingCacheWrite = new AtomicReference<>();
+    private final ExecutorService cacheWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "HeadSmith-CacheWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<StonecutterInventory, Player> dirtyStonecutters = new IdentityHashMap<>(); // checked next tick
+    private BukkitTask stonecutterTask;
+
+    private volatile HeadItemCache headItemCache = new HeadItemCache(512);
+    private final TagTable tagTable = new TagTable(); // kept across reloads so tag ids stay stable
+    private CatalogInterner interner = new CatalogInterner(tagTable);
 
     private NamespacedKey pdcHeadIdKey;
     private NamespacedKey pdcLitKey;
     private HeadMenus menus;
     private HeadPropertiesListener propertiesListener;
+    private HeadFileWatcher fileWatcher;
+    private volatile int catalogGeneration;
+    private volatile CompletionIndex completionIndex = CompletionIndex.EMPTY;
+    private HeadIndex headIndex = HeadIndex.EMPTY;
+    private UsageIndex usageIndex = UsageIndex.EMPTY;
+    private Set<String> commandLabels = Set.of("headsmith");
+    private volatile List<String> kitNames = List.of();
+    private volatile HeadCatalog catalog;
+    private RecipeDiscovery recipeDiscovery;
+    private MenuComposer menuComposer;
+    private DiscoveryMode discoveryMode = DiscoveryMode.NONE;
+    private List<String> discoveryTags = List.of();
+    private boolean nativeHeadStonecutter = true;
 
     private Set<String> excludedTags = new HashSet<>();
     private Set<String> excludedHeads = new HashSet<>();
@@ -87,27 +162,77 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         pdcHeadIdKey = new NamespacedKey(this, "head_id");
         pdcLitKey = new NamespacedKey(this, "lit");
 
+        PluginCommand command = getCommand("headsmith");
+        if (command != null) {
+            Set<String> labels = new HashSet<>();
+            labels.add(command.getName().toLowerCase(Locale.ROOT));
+            command.getAliases().forEach(a -> labels.add(a.toLowerCase(Locale.ROOT)));
+            commandLabels = labels;
+        }
+
         saveDefaultConfig();
+        readCatalogCache();
         reloadHeadsSync();
 
-        menus = new HeadMenus(headsById, headStonecutterRecipes, firstHeadByTag, tagChildren, pdcHeadIdKey, this::makeHeadItem, tagOrderFirst, tagOrderLast);
-        propertiesListener = new HeadPropertiesListener(this, pdcLitKey, headsById::get, headIdByTextureId::get);
+        menuComposer = new MenuComposer(this);
+        recipeDiscovery = new RecipeDiscovery(this,
+            item -> HeadUtils.getHeadIdFromItem(item, pdcHeadIdKey, headIdByTextureId));
+        publishCatalog();
+        getServer().getServicesManager().register(HeadCatalog.class, new LiveHeadCatalog(() -> catalog), this, ServicePriority.Normal);
+        propertiesListener = new HeadPropertiesListener(this, pdcLitKey, headsById::get, this::headIdForTexture);
 
         getServer().getPluginManager().registerEvents(this, this);
         getServer().getPluginManager().registerEvents(propertiesListener, this);
+        getServer().getPluginManager().registerEvents(recipeDiscovery, this);
         propertiesListener.startParticleTask();
+        startFileWatcher();
         getLogger().info("HeadSmith enabled: loaded " + headsById.size() + " heads");
     }
 
     @Override
     public void onDisable() {
+        getServer().getServicesManager().unregisterAll(this);
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+        }
         if (propertiesListener != null) {
             propertiesListener.stopParticleTask();
         }
+        if (recipeDiscovery != null) {
+            recipeDiscovery.stop();
+        }
+        if (menuComposer != null) {
+            menuComposer.shutdown();
+        }
+        if (stonecutterTask != null) {
+            stonecutterTask.cancel();
+            stonecutterTask = null;
+        }
+        dirtyStonecutters.clear();
+        cacheWriter.shutdown(); // a queued write still finishes
         headsById.clear();
         headIdByTextureId.clear();
-        firstHeadByTag.clear();
-        tagChildren.clear();
+        dropTablesById.clear();
+        headItemCache.clear();
+    }
+
+    private HeadMenus createMenus() {
+        // Menus are composed off the main thread, so they get their own copies of the mutable maps
+        return new HeadMenus(Map.copyOf(headsById), List.copyOf(headStonecutterRecipes), pdcHeadIdKey,
+            this::makeHeadItem, usageIndex, headIndex, menuComposer);
+    }
+
+    /** Swap in menus and a catalog snapshot for the heads now loaded. */
+    private void publishCatalog() {
+        headIndex = new HeadIndex(headsById.values(), tagOrderFirst, tagOrderLast);
+        catalog = new CatalogSnapshot(headIndex, headIdByTextureId, pdcHeadIdKey, this::makeHeadItem);
+        menus = createMenus();
+        recipeDiscovery.configure(discoveryMode, discoveryTags, headsById.values(), recipeKeysByHead, usageIndex);
+    }
+
+    /** Tell other plugins about the published catalog. Call once its recipes are registered. */
+    private void announceCatalog() {
+        getServer().getPluginManager().callEvent(new HeadCatalogReloadEvent(catalog));
     }
 
     private void sendHelp(CommandSender sender) {
@@ -124,13 +249,18 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
             sender.sendMessage(ChatColor.GRAY + "    Open the head catalog menu");
             sender.sendMessage(ChatColor.YELLOW + "  /headsmith search <query>");
             sender.sendMessage(ChatColor.GRAY + "    Search for heads by name or tag");
+            sender.sendMessage(ChatColor.GRAY + "    Filters: " + ChatColor.WHITE + "tag:<tag> prop:<property> -<word> OR");
+            sender.sendMessage(ChatColor.YELLOW + "  /headsmith uses <head|material>");
+            sender.sendMessage(ChatColor.GRAY + "    List heads crafted from a head or material");
         }
 
         if (sender.hasPermission("headsmith.admin")) {
             sender.sendMessage(ChatColor.YELLOW + "  /headsmith reload");
             sender.sendMessage(ChatColor.GRAY + "    Reload configuration and heads");
-            sender.sendMessage(ChatColor.YELLOW + "  /headsmith give <id> [player] [amount]");
-            sender.sendMessage(ChatColor.GRAY + "    Give a head to a player");
+            sender.sendMessage(ChatColor.YELLOW + "  /headsmith give <heads> [players] [amount]");
+            sender.sendMessage(ChatColor.GRAY + "    Give heads, tag:<tag> or kit:<name> to players or @a");
+            sender.sendMessage(ChatColor.YELLOW + "  /headsmith stats");
+            sender.sendMessage(ChatColor.GRAY + "    Show menu activity counters");
         }
 
         sender.sendMessage(ChatColor.YELLOW + "  /headsmith help");
@@ -154,7 +284,9 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 sender.sendMessage(ChatColor.RED + "This command can only be used by players.");
                 return true;
             }
-            menus.openTagListMenu(player, 0);
+            if (!menus.resumeCatalogMenu(player)) {
+                menus.openTagListMenu(player, 0);
+            }
             return true;
         }
 
@@ -171,7 +303,6 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 return true;
             }
             reloadHeadsAsync(sender);
-            menus = new HeadMenus(headsById, headStonecutterRecipes, firstHeadByTag, tagChildren, pdcHeadIdKey, this::makeHeadItem, tagOrderFirst, tagOrderLast);
             return true;
         }
 
@@ -185,41 +316,78 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 return true;
             }
             String query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+            try {
+                HeadQuery.parse(query);
+            } catch (IllegalArgumentException e) {
+                player.sendMessage(ChatColor.RED + e.getMessage());
+                return true;
+            }
             menus.openCatalogMenu(player, 0, query);
             return true;
         }
 
-        if (subCmd.equals("give")) {
+        if (subCmd.equals("uses")) {
+            if (args.length < 2) {
+                sender.sendMessage(ChatColor.RED + "Usage: /headsmith uses <head_id|material>");
+                return true;
+            }
+            IngredientSpec ingredient;
+            if (headsById.containsKey(args[1])) {
+                ingredient = new IngredientSpec(null, args[1]);
+            } else {
+                Material material = Material.matchMaterial(args[1]);
+                if (material == null) {
+                    sender.sendMessage(ChatColor.RED + "Unknown head or material: " + args[1]);
+                    return true;
+                }
+                ingredient = new IngredientSpec(material, null);
+            }
+
+            if (sender instanceof Player player) {
+                if (!menus.openUsedInMenu(player, ingredient, 0)) {
+                    player.sendMessage(ChatColor.YELLOW + "No heads use " + args[1] + " in a recipe.");
+                }
+            } else {
+                List<String> uses = usageIndex.usesOf(ingredient);
+                sender.sendMessage(uses.isEmpty()
+                    ? ChatColor.YELLOW + "No heads use " + args[1] + " in a recipe."
+                    : ChatColor.GREEN + "Used in " + uses.size() + " heads: " + ChatColor.WHITE + String.join(", ", uses));
+            }
+            return true;
+        }
+
+        if (subCmd.equals("stats")) {
             if (!sender.hasPermission("headsmith.admin")) {
                 sender.sendMessage(ChatColor.RED + "You don't have permission to do that.");
                 return true;
             }
-            if (args.length < 2) {
-                sender.sendMessage(ChatColor.RED + "Usage: /headsmith give <head_id> [player] [amount]");
+            sender.sendMessage(ChatColor.YELLOW + "[HeadSmith] " + ChatColor.WHITE + "Menus opened: " + menuComposer.openedMenus());
+            sender.sendMessage(ChatColor.YELLOW + "[HeadSmith] " + ChatColor.WHITE + "Clicks coalesced: " + menuComposer.coalescedRequests()
+                + ChatColor.GRAY + " (replaced by a later click before the menu was built)");
+            sender.sendMessage(ChatColor.YELLOW + "[HeadSmith] " + ChatColor.WHITE + "Menus discarded: " + menuComposer.discardedMenus()
+                + ChatColor.GRAY + " (built, but a later click had arrived)");
+            return true;
+        }
+
+        if (subCmd.equals("give")) {
+            if (!sender.hasPermission("headsmith.admin")) {
+                sender.sendMessage(ChatColor.RED + "You don't have permission to do that.");
                 return true;
             }
-
-            String headId = args[1];
-            HeadDef def = headsById.get(headId);
-            if (def == null) {
-                sender.sendMessage(ChatColor.RED + "Unknown head: " + headId);
+            if (args.length < 2) {
+                sender.sendMessage(ChatColor.RED + "Usage: /headsmith give <heads> [players] [amount]");
                 return true;
             }
 
-            Player target = null;
+            String targetSpec = null;
             int amount = 1;
 
             if (args.length >= 3) {
-                Player found = Bukkit.getPlayer(args[2]);
-                if (found != null) {
-                    target = found;
+                // "/hs give <head> <amount>" gives to yourself unless a player has that name
+                if (args.length == 3 && args[2].matches("\\d+") && Bukkit.getPlayerExact(args[2]) == null) {
+                    amount = Integer.parseInt(args[2]);
                 } else {
-                    try {
-                        amount = Integer.parseInt(args[2]);
-                    } catch (NumberFormatException e) {
-                        sender.sendMessage(ChatColor.RED + "Player not found: " + args[2]);
-                        return true;
-                    }
+                    targetSpec = args[2];
                 }
             }
 
@@ -232,25 +400,41 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 }
             }
 
-            if (target == null) {
+            Map<String, Integer> selection;
+            List<Player> targets;
+            try {
+                selection = resolveGiveSelection(args[1], clampStack(amount));
+                targets = targetSpec != null ? resolveGiveTargets(sender, targetSpec) : null;
+            } catch (IllegalArgumentException e) {
+                sender.sendMessage(ChatColor.RED + e.getMessage());
+                return true;
+            }
+
+            if (targets == null) {
                 if (sender instanceof Player player) {
-                    target = player;
+                    targets = List.of(player);
                 } else {
                     sender.sendMessage(ChatColor.RED + "Must specify a player when running from console.");
                     return true;
                 }
             }
+            if (targets.isEmpty()) {
+                sender.sendMessage(ChatColor.RED + "No players matched: " + targetSpec);
+                return true;
+            }
 
-            amount = Math.max(1, Math.min(64, amount));
-            ItemStack item = makeHeadItem(headId, amount);
-            giveToInventoryOrDrop(target, item);
+            // One template per head; every player gets clones of these
+            List<ItemStack> templates = new ArrayList<>();
+            selection.forEach((id, n) -> templates.add(makeHeadItem(id, n)));
 
-            sender.sendMessage(ChatColor.GREEN + "Gave " + amount + "x " +
-                ChatColor.stripColor(color(def.name())) + " to " + target.getName());
-            if (sender instanceof Player player && target != player) {
-                target.sendMessage(ChatColor.GREEN + "You received " + amount + "x " +
-                    ChatColor.stripColor(color(def.name())));
+            String description;
+            if (selection.size() == 1) {
+                Map.Entry<String, Integer> only = selection.entrySet().iterator().next();
+                description = only.getValue() + "x " + headsById.get(only.getKey()).plainName();
+            } else {
+                description = selection.size() + " heads";
             }
+            new HeadDistribution(this, sender, templates, targets, description).start();
             return true;
         }
 
@@ -266,39 +450,204 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (!command.getName().equalsIgnoreCase("headsmith")) return List.of();
+        return complete(sender, args);
+    }
+
+    /** Serve completions off the main thread; onTabComplete is only the fallback. */
+    @EventHandler
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (!event.isCommand() || event.isHandled()) return;
+
+        String buffer = event.getBuffer();
+        if (buffer.startsWith("/")) buffer = buffer.substring(1);
+        int space = buffer.indexOf(' ');
+        if (space < 0) return;
+
+        String label = buffer.substring(0, space).toLowerCase(Locale.ROOT);
+        label = label.substring(label.indexOf(':') + 1); // headsmith:hs
+        if (!commandLabels.contains(label)) return;
+
+        event.setCompletions(complete(event.getSender(), buffer.substring(space + 1).split(" ", -1)));
+        event.setHandled(true);
+    }
+
+    private List<String> completeSearchWord(String partial) {
+        String negation = partial.startsWith("-") ? "-" : "";
+        String word = partial.substring(negation.length());
+        String lower = word.toLowerCase(Locale.ROOT);
+        List<String> options = new ArrayList<>();
+        if (lower.startsWith("tag:")) {
+            completionIndex.tags(word.substring(4), MAX_COMPLETIONS).forEach(t -> options.add(negation + "tag:" + t));
+        } else if (lower.startsWith("prop:")) {
+            for (HeadProperty property : HeadProperty.values()) {
+                String name = property.name().toLowerCase(Locale.ROOT);
+                if (name.startsWith(lower.substring(5))) options.add(negation + "prop:" + name);
+            }
+        } else {
+            if ("tag:".startsWith(lower)) options.add(negation + "tag:");
+            if ("prop:".startsWith(lower)) options.add(negation + "prop:");
+            completionIndex.searchTerms(word, MAX_COMPLETIONS).forEach(t -> options.add(negation + t));
+        }
+        return options;
+    }
 
+    private List<String> complete(CommandSender sender, String[] args) {
         if (args.length == 1) {
             String partial = args[0].toLowerCase();
             List<String> options = new ArrayList<>();
             options.add("show");
             options.add("search");
+            options.add("uses");
             if (sender.hasPermission("headsmith.admin")) {
                 options.add("reload");
                 options.add("give");
+                options.add("stats");
             }
             options.add("help");
             return options.stream().filter(s -> s.startsWith(partial)).collect(Collectors.toList());
         }
 
-        if (args.length == 2 && args[0].equalsIgnoreCase("give")) {
-            String partial = args[1].toLowerCase();
-            return headsById.keySet().stream()
-                .filter(id -> id.toLowerCase().startsWith(partial))
-                .limit(20)
-                .collect(Collectors.toList());
+        String subCmd = args[0].toLowerCase();
+        String partial = args[args.length - 1];
+
+        if (subCmd.equals("search")) {
+            return completeSearchWord(partial);
+        }
+
+        if (subCmd.equals("uses") && args.length == 2) {
+            List<String> options = new ArrayList<>(completionIndex.headIds(partial, MAX_COMPLETIONS));
+            String lower = partial.toLowerCase(Locale.ROOT);
+            int start = Collections.binarySearch(ITEM_NAMES, lower);
+            if (start < 0) start = -start - 1; // names are unique, so an exact hit is the first match
+            for (int i = start; i < ITEM_NAMES.size() && options.size() < MAX_COMPLETIONS; i++) {
+                String item = ITEM_NAMES.get(i);
+                if (!item.startsWith(lower)) break;
+                options.add(item);
+            }
+            return options;
+        }
+
+        if (!sender.hasPermission("headsmith.admin")) return List.of();
+
+        if (subCmd.equals("reload") && args.length == 2) {
+            return "confirm".startsWith(partial.toLowerCase()) ? List.of("confirm") : List.of();
         }
 
-        if (args.length == 3 && args[0].equalsIgnoreCase("give")) {
-            String partial = args[2].toLowerCase();
-            return Bukkit.getOnlinePlayers().stream()
+        // Give arguments are comma-separated lists, so only the last entry is completed
+        int comma = partial.lastIndexOf(',') + 1;
+        String before = partial.substring(0, comma);
+        String last = partial.substring(comma);
+        String lastLower = last.toLowerCase();
+
+        if (subCmd.equals("give") && args.length == 2) {
+            List<String> options = new ArrayList<>();
+            if (lastLower.startsWith("tag:")) {
+                completionIndex.tags(last.substring(4), MAX_COMPLETIONS).forEach(t -> options.add(before + "tag:" + t));
+            } else if (lastLower.startsWith("kit:")) {
+                String kit = lastLower.substring(4);
+                kitNames.stream().filter(k -> k.toLowerCase().startsWith(kit)).forEach(k -> options.add(before + "kit:" + k));
+            } else {
+                if ("tag:".startsWith(lastLower)) options.add(before + "tag:");
+                if ("kit:".startsWith(lastLower) && !kitNames.isEmpty()) options.add(before + "kit:");
+                completionIndex.headIds(last, MAX_COMPLETIONS).forEach(id -> options.add(before + id));
+            }
+            return options;
+        }
+
+        if (subCmd.equals("give") && args.length == 3) {
+            List<String> options = new ArrayList<>();
+            for (String selector : List.of("@a", "@p", "@r", "@s")) {
+                if (selector.startsWith(lastLower)) options.add(before + selector);
+            }
+            Bukkit.getOnlinePlayers().stream()
                 .map(Player::getName)
-                .filter(name -> name.toLowerCase().startsWith(partial))
-                .collect(Collectors.toList());
+                .filter(name -> name.toLowerCase().startsWith(lastLower))
+                .forEach(name -> options.add(before + name));
+            return options;
         }
 
         return List.of();
     }
 
+    /**
+     * Resolve a comma-separated list of head ids, {@code tag:<tag>} and {@code kit:<name>}
+     * to head ids and amounts, in order. A tag also selects its child tags.
+     */
+    private Map<String, Integer> resolveGiveSelection(String spec, int amount) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (String token : spec.split(",")) {
+            if (token.isEmpty()) continue;
+            if (token.startsWith("kit:")) {
+                addKitSelection(out, token.substring(4), amount);
+            } else {
+                addHeadSelection(out, token, amount);
+            }
+        }
+        if (out.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to give: " + spec);
+        }
+        return out;
+    }
+
+    private void addHeadSelection(Map<String, Integer> out, String token, int amount) {
+        if (token.startsWith("tag:")) {
+            String tag = token.substring(4);
+            List<HeadDef> heads = headIndex.headsUnder(tag);
+            if (heads.isEmpty()) {
+                throw new IllegalArgumentException("No heads with tag: " + tag);
+            }
+            for (HeadDef head : heads) {
+                out.putIfAbsent(head.id(), amount);
+            }
+            return;
+        }
+        if (!headsById.containsKey(token)) {
+            throw new IllegalArgumentException("Unknown head: " + token);
+        }
+        out.putIfAbsent(token, amount);
+    }
+
+    private void addKitSelection(Map<String, Integer> out, String name, int amount) {
+        List<?> entries = getConfig().getList("kits." + name);
+        if (entries == null) {
+            throw new IllegalArgumentException("Unknown kit: " + name);
+        }
+        for (Object entry : entries) {
+            if (entry instanceof Map<?, ?> m) {
+                // "- candle: 16"
+                for (Map.Entry<?, ?> e : m.entrySet()) {
+                    addHeadSelection(out, String.valueOf(e.getKey()), clampStack(asInt(e.getValue(), amount)));
+                }
+            } else if (entry != null) {
+                addHeadSelection(out, String.valueOf(entry), amount);
+            }
+        }
+    }
+
+    /** Resolve a comma-separated list of player names and selectors such as {@code @a}. */
+    private List<Player> resolveGiveTargets(CommandSender sender, String spec) {
+        Set<Player> out = new LinkedHashSet<>();
+        for (String token : spec.split(",")) {
+            if (token.isEmpty()) continue;
+            if (token.startsWith("@")) {
+                for (Entity entity : Bukkit.selectEntities(sender, token)) {
+                    if (entity instanceof Player p) out.add(p);
+                }
+            } else {
+                Player p = Bukkit.getPlayerExact(token);
+                if (p == null) {
+                    throw new IllegalArgumentException("Player not found: " + token);
+                }
+                out.add(p);
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    private static int clampStack(int amount) {
+        return Math.max(1, Math.min(64, amount));
+    }
+
     // Config loading
 
     private void reloadHeadsSync() {
@@ -314,11 +663,14 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         sender.sendMessage(ChatColor.YELLOW + "[HeadSmith] Starting reload...");
 
         // Copy keys to remove and clear the list
-        List<NamespacedKey> keysToRemove = new ArrayList<>(registeredRecipeKeys);
-        registeredRecipeKeys.clear();
+        List<NamespacedKey> keysToRemove = new ArrayList<>();
+        recipeKeysByHead.values().forEach(keysToRemove::addAll);
+        recipeKeysByHead.clear();
 
-        // Load new head data (this populates pendingRecipes and registeredRecipeKeys)
+        // Load new head data (this populates pendingRecipes and recipeKeysByHead)
         loadHeadData();
+        startFileWatcher();
+        publishCatalog();
 
         int totalToRemove = keysToRemove.size();
         int totalToAdd = pendingRecipes.size();
@@ -326,8 +678,11 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
         // First batch-remove old recipes, then batch-add new ones
         removeRecipesBatched(sender, keysToRemove, () -> {
-            registerRecipesBatched(sender, () -> {
+            registerRecipesBatched(sender, pendingRecipes, () -> {
                 sender.sendMessage(ChatColor.GREEN + "[HeadSmith] Reload complete! " + totalToAdd + " recipes registered.");
+                // Only now are the new recipes known to the server, so they can be discovered
+                recipeDiscovery.enqueueOnline();
+                announceCatalog();
             });
         });
     }
@@ -335,9 +690,11 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
     private void loadHeadData() {
         headsById.clear();
         headIdByTextureId.clear();
-        firstHeadByTag.clear();
-        tagChildren.clear();
         pendingRecipes.clear();
+        dropTablesById.clear();
+        headIdsByCustomFile.clear();
+        overriddenHeads.clear();
+        catalogGeneration++;
 
         reloadConfig();
 
@@ -349,6 +706,18 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         tagOrderFirst = getConfig().getStringList("tag-order.first");
         tagOrderLast = getConfig().getStringList("tag-order.last");
 
+        ConfigurationSection kits = getConfig().getConfigurationSection("kits");
+        kitNames = kits != null ? List.copyOf(kits.getKeys(false)) : List.of();
+
+        discoveryMode = DiscoveryMode.parse(getConfig().getString("recipe-discovery.mode", "none"), getLogger());
+        discoveryTags = getConfig().getStringList("recipe-discovery.tags");
+        nativeHeadStonecutter = getConfig().getBoolean("native-head-stonecutter", true);
+
+        // Head definitions are about to change, so drop any items built from the old ones
+        headItemCache = new HeadItemCache(Math.max(1, getConfig().getInt("head-item-cache-size", 512)));
+        interner = new CatalogInterner(tagTable);
+        Set<String> loadedFiles = new HashSet<>();
+
         // Load bundled heads from JAR
         List<String> bundledFiles = readHeadsManifest();
         int jarHeadCount = 0;
@@ -363,6 +732,7 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 continue;
             }
 
+            loadedFiles.add(fileTag);
             LoadResult result = loadHeadsFromJarResource(resourcePath, fileTag);
             jarHeadCount += result.loaded();
             totalExcluded += result.excluded();
@@ -385,6 +755,7 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
                 continue;
             }
             String fileTag = "custom/" + filePath.replaceFirst("\\.yml$", "");
+            loadedFiles.add(fileTag);
             LoadResult result = loadHeadsFromFile(headsFile, filePath, fileTag);
             customHeadCount += result.loaded();
             totalExcluded += result.excluded();
@@ -398,24 +769,17 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
         int totalFound = jarHeadCount + customHeadCount + totalExcluded;
         getLogger().info("Total: " + totalFound + " heads found, " + totalExcluded + " excluded, " + headsById.size() + " enabled");
+        parsedFiles.keySet().retainAll(loadedFiles);
+        writeCatalogCache();
+        getLogger().info(interner.report());
+        // Keep tag ids stable for later additions but let go of the lookup maps
+        interner = new CatalogInterner(tagTable);
 
-        // Build tag-to-first-head index and tag hierarchy for menu display
-        for (HeadDef head : headsById.values()) {
-            for (String tag : head.tags()) {
-                firstHeadByTag.putIfAbsent(tag, head.id());
-
-                // Build tag hierarchy (e.g., "alphabet/oak" -> parent "alphabet" has child "oak")
-                int slashIndex = tag.indexOf('/');
-                if (slashIndex > 0) {
-                    String parent = tag.substring(0, slashIndex);
-                    String child = tag.substring(slashIndex + 1);
-                    tagChildren.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(child);
-                }
-            }
-        }
-
+        completionIndex = CompletionIndex.build(headsById.values());
         collectStonecutterRecipes();
         collectCraftingRecipes();
+        usageIndex = UsageIndex.build(headsById.values());
+        compileDropTables();
     }
 
     private List<String> readHeadsManifest() {
@@ -475,127 +839,411 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
     }
 
     private boolean isTagExcluded(String fileTag) {
-        if (excludedTags.contains(fileTag)) {
-            return true;
-        }
-        // Check if any parent tag is excluded (e.g., "alphabet" excludes "alphabet/oak")
-        int slashIndex = fileTag.indexOf('/');
-        if (slashIndex > 0) {
-            String parentTag = fileTag.substring(0, slashIndex);
-            if (excludedTags.contains(parentTag)) {
-                return true;
-            }
-        }
-        return false;
+        // Any excluded ancestor counts too (e.g., "alphabet" excludes "alphabet/oak")
+        return TagTree.isWithin(fileTag, excludedTags);
     }
 
     private LoadResult loadHeadsFromJarResource(String resourcePath, String fileTag) {
-        try (InputStream is = getResource(resourcePath)) {
-            if (is == null) {
-                getLogger().warning("Resource not found in JAR: " + resourcePath);
-                return new LoadResult(0, 0, List.of());
+        try {
+            String hash;
+            try (InputStream is = getResource(resourcePath)) {
+                if (is == null) {
+                    getLogger().warning("Resource not found in JAR: " + resourcePath);
+                    return new LoadResult(0, 0, List.of());
+                }
+                hash = sha256(is);
             }
-            YamlConfiguration cfg = YamlConfiguration.loadConfiguration(
-                new InputStreamReader(is, StandardCharsets.UTF_8));
-            return processHeadsConfig(cfg, resourcePath, fileTag, false);
+            ParsedFile cached = parsedFiles.get(fileTag);
+            if (cached == null || !cached.hash().equals(hash)) {
+                cached = new ParsedFile(hash, parseJarResource(resourcePath, fileTag));
+                parsedFiles.put(fileTag, cached);
+            }
+            return registerHeads(cached.heads(), resourcePath, false).toResult();
         } catch (IOException e) {
             getLogger().warning("Failed to load " + resourcePath + ": " + e.getMessage());
             return new LoadResult(0, 0, List.of());
         }
     }
 
+    private List<ParsedHead> parseJarResource(String resourcePath, String fileTag) throws IOException {
+        try (InputStream is = getResource(resourcePath)) {
+            YamlConfiguration cfg = YamlConfiguration.loadConfiguration(
+                new InputStreamReader(is, StandardCharsets.UTF_8));
+            ConfigurationSection headsSec = cfg.getConfigurationSection("heads");
+            if (headsSec == null) {
+                getLogger().warning(resourcePath + " missing 'heads:' section");
+                return List.of();
+            }
+            List<ParsedHead> parsed = new ArrayList<>();
+            for (String headId : headsSec.getKeys(false)) {
+                ConfigurationSection h = headsSec.getConfigurationSection(headId);
+                if (h == null) continue;
+                HeadDef def = parseHead(headId, h, resourcePath, fileTag, interner);
+                if (def != null) parsed.add(new ParsedHead(def, h.getBoolean("override", false)));
+            }
+            return parsed;
+        }
+    }
+
     private LoadResult loadHeadsFromFile(File headsFile, String filePath, String fileTag) {
-        YamlConfiguration cfg = YamlConfiguration.loadConfiguration(headsFile);
-        return processHeadsConfig(cfg, filePath, fileTag, true);
+        LoadTally tally = new LoadTally();
+        try {
+            String hash;
+            try (InputStream is = Files.newInputStream(headsFile.toPath())) {
+                hash = sha256(is);
+            }
+            ParsedFile cached = parsedFiles.get(fileTag);
+            if (cached == null || !cached.hash().equals(hash)) {
+                List<ParsedHead> heads = parseCustomFile(headsFile, filePath, fileTag, interner);
+                if (heads == null) {
+                    getLogger().warning(filePath + " missing 'heads:' section");
+                    heads = List.of();
+                }
+                cached = new ParsedFile(hash, heads);
+                parsedFiles.put(fileTag, cached);
+            }
+            tally = registerHeads(cached.heads(), filePath, true);
+        } catch (IOException | YAMLException e) {
+            getLogger().warning("Failed to load " + filePath + ": " + e.getMessage());
+        }
+        headIdsByCustomFile.put(filePath, tally.ids);
+        return tally.toResult();
     }
 
-    private LoadResult processHeadsConfig(YamlConfiguration cfg, String source, String fileTag, boolean allowOverride) {
-        ConfigurationSection headsSec = cfg.getConfigurationSection("heads");
-        if (headsSec == null) {
-            getLogger().warning(source + " missing 'heads:' section");
-            return new LoadResult(0, 0, List.of());
+    /**
+     * Parse a custom head file without touching the catalog. Custom files can be large community
+     * packs, so they are streamed one head at a time. The heads are only returned once the whole
+     * file has parsed, so a file that fails part way adds none of them.
+     *
+     * @return null if the file has no {@code heads:} section
+     */
+    private List<ParsedHead> parseCustomFile(File headsFile, String filePath, String fileTag,
+                                             CatalogInterner interner) throws IOException {
+        List<ParsedHead> parsed = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(headsFile.toPath(), StandardCharsets.UTF_8)) {
+            boolean found = HeadYamlStream.read(reader, (headId, h) -> {
+                HeadDef def = parseHead(headId, h, filePath, fileTag, interner);
+                if (def != null) parsed.add(new ParsedHead(def, h.getBoolean("override", false)));
+            });
+            return found ? parsed : null;
         }
+    }
 
-        int loaded = 0;
-        int excluded = 0;
-        List<String> overridden = new ArrayList<>();
-        for (String headId : headsSec.getKeys(false)) {
+    /** Apply exclusions and add parsed heads to the catalog. */
+    private LoadTally registerHeads(List<ParsedHead> heads, String source, boolean allowOverride) {
+        LoadTally tally = new LoadTally();
+        for (ParsedHead p : heads) {
             // Check if this specific head ID is excluded
-            if (excludedHeads.contains(headId)) {
-                getLogger().fine("Skipping excluded head: " + headId);
-                excluded++;
+            if (excludedHeads.contains(p.def().id())) {
+                getLogger().fine("Skipping excluded head: " + p.def().id());
+                tally.excluded++;
                 continue;
             }
+            registerHead(p.def(), p.override(), source, allowOverride, tally);
+        }
+        return tally;
+    }
+
+    private static String sha256(InputStream in) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
+        }
+    }
 
-            ConfigurationSection h = headsSec.getConfigurationSection(headId);
-            if (h == null) continue;
+    private HeadDef parseHead(String headId, ConfigurationSection h, String source, String fileTag,
+                              CatalogInterner interner) {
+        String base64 = requireString(h, "texture").orElse(null);
+        if (base64 == null || base64.isBlank()) {
+            getLogger().warning("Head '" + headId + "' missing texture in " + source);
+            return null;
+        }
 
-            String base64 = requireString(h, "texture").orElse(null);
-            if (base64 == null || base64.isBlank()) {
-                getLogger().warning("Head '" + headId + "' missing texture in " + source);
-                continue;
+        TextureRef texture = parseTextureBase64(base64).orElse(null);
+        if (texture == null) {
+            getLogger().warning("Head '" + headId + "' has invalid base64 texture in " + source);
+            return null;
+        }
+
+        String name = requireString(h, "name").orElse(headId);
+        List<String> lore = interner.lore(h.getStringList("lore"));
+
+        // Parse tags: file-source tag first, then explicit tags from YAML
+        Set<String> tagNames = new LinkedHashSet<>();
+        tagNames.add(fileTag);
+        tagNames.addAll(h.getStringList("tags"));
+        Set<String> tags = interner.tags(tagNames);
+
+        Set<HeadProperty> properties = HeadProperty.parseProperties(h.getStringList("properties"));
+        List<DropRule> dropRules = HeadConfigParser.parseDropRules(h.getConfigurationSection("drops"));
+
+        List<CraftShapedRecipeDef> shaped = new ArrayList<>();
+        List<CraftShapelessRecipeDef> shapeless = new ArrayList<>();
+        HeadConfigParser.parseCraftingRecipes(h.getConfigurationSection("recipes"), headId, shaped, shapeless, interner);
+
+        List<StonecutterRecipeDef> stonecut = HeadConfigParser.parseStonecutterRecipes(
+            h.getConfigurationSection("recipes"), headId, interner);
+
+        return new HeadDef(headId, texture, name, lore, tags, properties, shaped, shapeless, stonecut, dropRules);
+    }
+
+    private void registerHead(HeadDef def, boolean override, String source, boolean allowOverride, LoadTally tally) {
+        String headId = def.id();
+        if (headsById.containsKey(headId)) {
+            if (allowOverride && override) {
+                HeadDef oldDef = headsById.get(headId);
+                headIdByTextureId.remove(oldDef.texture());
+                overriddenHeads.putIfAbsent(headId, oldDef);
+                tally.overridden.add(headId);
+            } else if (allowOverride) {
+                throw new IllegalStateException("Duplicate head ID '" + headId + "' in " + source + " (add 'override: true' to replace bundled head)");
+            } else {
+                throw new IllegalStateException("Duplicate head ID '" + headId + "' in " + source);
             }
+        }
+        headsById.put(headId, def);
+        headIdByTextureId.put(def.texture(), headId);
+        tally.ids.add(headId);
+        tally.loaded++;
+    }
 
-            Optional<TextureInfo> texInfoOpt = parseTextureBase64(base64);
-            if (texInfoOpt.isEmpty()) {
-                getLogger().warning("Head '" + headId + "' has invalid base64 texture in " + source);
-                continue;
+    // Custom file hot reload
+
+    private void startFileWatcher() {
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+        if (!getConfig().getBoolean("watch-custom-head-files", true)) return;
+        fileWatcher = new HeadFileWatcher(getLogger(), getDataFolder().toPath(),
+            getConfig().getStringList("custom-head-files"), this::reloadCustomFile);
+        fileWatcher.start();
+    }
+
+    /** Runs on the watcher thread: parse the changed file, then apply it on the main thread. */
+    private void reloadCustomFile(String filePath) {
+        int generation = catalogGeneration;
+        File headsFile = new File(getDataFolder(), filePath);
+        if (!headsFile.exists()) return; // mid-save rename; the follow-up create event reloads it
+
+        String fileTag = "custom/" + filePath.replaceFirst("\\.yml$", "");
+        ParsedFile parsed;
+        try {
+            String hash;
+            try (InputStream is = Files.newInputStream(headsFile.toPath())) {
+                hash = sha256(is);
             }
-            TextureInfo texInfo = texInfoOpt.get();
+            ParsedFile cached = parsedFiles.get(fileTag);
+            if (cached != null && cached.hash().equals(hash)) return; // saved without changes
 
-            String name = requireString(h, "name").orElse(headId);
-            List<String> lore = h.getStringList("lore");
+            List<ParsedHead> heads = parseCustomFile(headsFile, filePath, fileTag, new CatalogInterner(tagTable));
+            if (heads == null) {
+                getLogger().warning(filePath + " missing 'heads:' section");
+                return;
+            }
+            parsed = new ParsedFile(hash, heads);
+        } catch (IOException | YAMLException e) {
+            // Keep the heads from the last good version of the file
+            getLogger().warning("Failed to reload " + filePath + ": " + e.getMessage());
+            return;
+        }
 
-            // Parse tags: file-source tag first, then explicit tags from YAML
-            Set<String> tags = new LinkedHashSet<>();
-            tags.add(fileTag);
-            tags.addAll(h.getStringList("tags"));
+        Bukkit.getScheduler().runTask(this, () -> {
+            if (generation != catalogGeneration) return; // a full reload replaced the catalog meanwhile
+            parsedFiles.put(fileTag, parsed);
+            applyCustomFile(filePath, parsed.heads());
+            writeCatalogCache();
+        });
+    }
 
-            Set<HeadProperty> properties = HeadProperty.parseProperties(h.getStringList("properties"));
-            List<DropRule> dropRules = HeadConfigParser.parseDropRules(h.getConfigurationSection("drops"));
+    // Catalog cache
 
-            List<CraftShapedRecipeDef> shaped = new ArrayList<>();
-            List<CraftShapelessRecipeDef> shapeless = new ArrayList<>();
-            HeadConfigParser.parseCraftingRecipes(h.getConfigurationSection("recipes"), headId, shaped, shapeless);
+    private Path catalogCacheFile() {
+        return getDataFolder().toPath().resolve("cache").resolve("catalog.bin");
+    }
 
-            List<StonecutterRecipeDef> stonecut = HeadConfigParser.parseStonecutterRecipes(
-                h.getConfigurationSection("recipes"), headId);
+    private String catalogCacheKey() {
+        return getDescription().getVersion() + "/" + Bukkit.getBukkitVersion();
+    }
 
-            HeadDef def = new HeadDef(headId, base64, texInfo.textureUrl(), texInfo.textureId(),
-                name, lore, tags, properties, shaped, shapeless, stonecut, dropRules);
+    private void readCatalogCache() {
+        try {
+            Map<String, ParsedFile> cached = CatalogCache.read(catalogCacheFile(), catalogCacheKey(), interner);
+            parsedFiles.putAll(cached);
+            cachedFileHashes = fileHashes(cached);
+            if (!cached.isEmpty()) {
+                getLogger().info("Read " + cached.size() + " parsed head files from cache");
+            }
+        } catch (IOException e) {
+            getLogger().warning("Ignoring catalog cache: " + e.getMessage());
+        }
+    }
 
-            if (headsById.containsKey(headId)) {
-                boolean override = h.getBoolean("override", false);
-                if (allowOverride && override) {
-                    HeadDef oldDef = headsById.get(headId);
-                    headIdByTextureId.remove(oldDef.textureId());
-                    overridden.add(headId);
-                } else if (allowOverride) {
-                    throw new IllegalStateException("Duplicate head ID '" + headId + "' in " + source + " (add 'override: true' to replace bundled head)");
-                } else {
-                    throw new IllegalStateException("Duplicate head ID '" + headId + "' in " + source);
+    /**
+     * Rewrite the cache off the main thread if any file was parsed since it was last written.
+     * Writes run one at a time on a single thread, and a write still queued is replaced by the
+     * newer snapshot rather than both being written.
+     */
+    private void writeCatalogCache() {
+        Map<String, ParsedFile> snapshot = new HashMap<>(parsedFiles);
+        Map<String, String> hashes = fileHashes(snapshot);
+        if (hashes.equals(cachedFileHashes)) return;
+        cachedFileHashes = hashes;
+
+        Path file = catalogCacheFile();
+        String key = catalogCacheKey();
+        if (pendingCacheWrite.getAndSet(snapshot) != null) return; // the queued write picks this one up
+        try {
+            cacheWriter.execute(() -> {
+                Map<String, ParsedFile> latest = pendingCacheWrite.getAndSet(null);
+                try {
+                    CatalogCache.write(file, key, latest);
+                } catch (IOException e) {
+                    getLogger().warning("Failed to write catalog cache: " + e.getMessage());
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private static Map<String, String> fileHashes(Map<String, ParsedFile> files) {
+        Map<String, String> hashes = new HashMap<>();
+        files.forEach((tag, file) -> hashes.put(tag, file.hash()));
+        return hashes;
+    }
+
+    private void applyCustomFile(String filePath, List<ParsedHead> parsed) {
+        List<String> order = new ArrayList<>(headsById.keySet());
+
+        // Take out everything the previous version of this file contributed
+        List<String> previousIds = headIdsByCustomFile.getOrDefault(filePath, List.of());
+        Set<String> changed = new HashSet<>(previousIds);
+        for (String id : previousIds) {
+            HeadDef old = headsById.remove(id);
+            if (old != null) {
+                headIdByTextureId.remove(old.texture());
+            }
+            HeadDef replaced = overriddenHeads.remove(id);
+            if (replaced != null) {
+                headsById.put(id, replaced);
+                headIdByTextureId.put(replaced.texture(), id);
             }
-            headsById.put(headId, def);
-            headIdByTextureId.put(def.textureId(), headId);
-            loaded++;
         }
-        return new LoadResult(loaded, excluded, overridden);
+
+        LoadTally tally = new LoadTally();
+        for (ParsedHead p : parsed) {
+            if (excludedHeads.contains(p.def().id())) continue;
+            try {
+                registerHead(p.def(), p.override(), filePath, true, tally);
+                changed.add(p.def().id());
+            } catch (IllegalStateException e) {
+                getLogger().warning(e.getMessage());
+            }
+        }
+        headIdsByCustomFile.put(filePath, tally.ids);
+
+        // Heads keep their catalog position; only heads new to the file go at the end
+        Map<String, HeadDef> reordered = new LinkedHashMap<>();
+        for (String id : order) {
+            HeadDef def = headsById.get(id);
+            if (def != null) reordered.put(id, def);
+        }
+        reordered.putAll(headsById);
+        headsById.clear();
+        headsById.putAll(reordered);
+
+        for (String id : changed) {
+            headItemCache.invalidate(id);
+        }
+        completionIndex = CompletionIndex.build(headsById.values());
+        dropTablesById.clear();
+        compileDropTables();
+
+        // Recipes embed head items, so heads using a changed head as an ingredient are rebuilt too
+        Set<String> recipeHeads = new HashSet<>(changed);
+        for (HeadDef head : headsById.values()) {
+            if (usesAnyHead(head, changed)) recipeHeads.add(head.id());
+        }
+        int removedRecipes = 0;
+        for (String id : recipeHeads) {
+            List<NamespacedKey> keys = recipeKeysByHead.remove(id);
+            if (keys == null) continue;
+            for (NamespacedKey key : keys) {
+                Bukkit.removeRecipe(key);
+            }
+            removedRecipes += keys.size();
+        }
+        headStonecutterRecipes.removeIf(r -> recipeHeads.contains(r.outputHeadId()));
+        List<Recipe> added = new ArrayList<>();
+        for (String id : recipeHeads) {
+            HeadDef head = headsById.get(id);
+            if (head == null) continue;
+            collectStonecutterRecipes(head, added);
+            collectCraftingRecipes(head, added);
+        }
+        usageIndex = UsageIndex.build(headsById.values());
+        publishCatalog();
+
+        int addedRecipes = added.size();
+        int replacedRecipes = removedRecipes;
+        registerRecipesBatched(Bukkit.getConsoleSender(), added, () -> {
+            recipeDiscovery.enqueueOnline();
+            announceCatalog();
+            getLogger().info("Reloaded " + filePath + ": " + tally.loaded + " heads (" + previousIds.size() + " before), "
+                + replacedRecipes + " recipes replaced by " + addedRecipes);
+        });
+    }
+
+    private static boolean usesAnyHead(HeadDef head, Set<String> headIds) {
+        for (StonecutterRecipeDef r : head.stonecutter()) {
+            if (r.input().headId != null && headIds.contains(r.input().headId)) return true;
+        }
+        for (CraftShapedRecipeDef r : head.shaped()) {
+            for (IngredientSpec spec : r.key.values()) {
+                if (spec.headId != null && headIds.contains(spec.headId)) return true;
+            }
+        }
+        for (CraftShapelessRecipeDef r : head.shapeless()) {
+            for (IngredientSpec spec : r.ingredients) {
+                if (spec.headId != null && headIds.contains(spec.headId)) return true;
+            }
+        }
+        return false;
     }
 
     private void collectStonecutterRecipes() {
         headStonecutterRecipes.clear();
         for (HeadDef head : headsById.values()) {
-            for (StonecutterRecipeDef r : head.stonecutter()) {
-                if (r.input().material != null) {
+            collectStonecutterRecipes(head, pendingRecipes);
+        }
+    }
+
+    private void collectStonecutterRecipes(HeadDef head, List<Recipe> out) {
+        for (StonecutterRecipeDef r : head.stonecutter()) {
+            if (r.input().material != null) {
+                NamespacedKey key = new NamespacedKey(this, "stonecut_" + head.id() + "_" + r.id());
+                ItemStack result = recipeItem(head.id(), r.amount());
+                StonecuttingRecipe recipe = new StonecuttingRecipe(key, result,
+                    new RecipeChoice.MaterialChoice(r.input().material));
+                out.add(recipe);
+                recipeKeysByHead.computeIfAbsent(head.id(), k -> new ArrayList<>()).add(key);
+            } else if (r.input().headId != null) {
+                headStonecutterRecipes.add(new HeadStonecutterRecipe(r.input().headId, head.id(), r.amount()));
+                if (nativeHeadStonecutter && headsById.containsKey(r.input().headId)) {
+                    // Matches a freshly made head; other heads with this id are swapped for one when put in
                     NamespacedKey key = new NamespacedKey(this, "stonecut_" + head.id() + "_" + r.id());
-                    ItemStack result = makeHeadItem(head.id(), r.amount());
-                    StonecuttingRecipe recipe = new StonecuttingRecipe(key, result,
-                        new RecipeChoice.MaterialChoice(r.input().material));
-                    pendingRecipes.add(recipe);
-                    registeredRecipeKeys.add(key);
-                } else if (r.input().headId != null) {
-                    headStonecutterRecipes.add(new HeadStonecutterRecipe(r.input().headId, head.id(), r.amount()));
+                    StonecuttingRecipe recipe = new StonecuttingRecipe(key, recipeItem(head.id(), r.amount()),
+                        new RecipeChoice.ExactChoice(recipeItem(r.input().headId, 1)));
+                    out.add(recipe);
+                    recipeKeysByHead.computeIfAbsent(head.id(), k -> new ArrayList<>()).add(key);
                 }
             }
         }
@@ -603,21 +1251,25 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
     private void collectCraftingRecipes() {
         for (HeadDef head : headsById.values()) {
-            int totalRecipes = head.shaped().size() + head.shapeless().size();
-            int index = 0;
-            for (CraftShapedRecipeDef r : head.shaped()) {
-                collectShapedRecipe(head, r, index++, totalRecipes);
-            }
-            for (CraftShapelessRecipeDef r : head.shapeless()) {
-                collectShapelessRecipe(head, r, index++, totalRecipes);
-            }
+            collectCraftingRecipes(head, pendingRecipes);
+        }
+    }
+
+    private void collectCraftingRecipes(HeadDef head, List<Recipe> out) {
+        int totalRecipes = head.shaped().size() + head.shapeless().size();
+        int index = 0;
+        for (CraftShapedRecipeDef r : head.shaped()) {
+            collectShapedRecipe(head, r, index++, totalRecipes, out);
+        }
+        for (CraftShapelessRecipeDef r : head.shapeless()) {
+            collectShapelessRecipe(head, r, index++, totalRecipes, out);
         }
     }
 
-    private void collectShapedRecipe(HeadDef head, CraftShapedRecipeDef r, int index, int total) {
+    private void collectShapedRecipe(HeadDef head, CraftShapedRecipeDef r, int index, int total, List<Recipe> out) {
         String keyName = total == 1 ? "craft_" + head.id() : "craft_" + head.id() + "_" + index;
         NamespacedKey key = new NamespacedKey(this, keyName);
-        ItemStack result = makeHeadItem(r.id, r.amount);
+        ItemStack result = recipeItem(r.id, r.amount);
 
         ShapedRecipe recipe = new ShapedRecipe(key, result);
         recipe.shape(r.pattern.toArray(new String[0]));
@@ -625,35 +1277,41 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         for (Map.Entry<Character, IngredientSpec> e : r.key.entrySet()) {
             IngredientSpec spec = e.getValue();
             if (spec.headId != null) {
-                ItemStack headItem = makeHeadItem(spec.headId, 1);
+                ItemStack headItem = recipeItem(spec.headId, 1);
                 recipe.setIngredient(e.getKey(), new RecipeChoice.ExactChoice(headItem));
             } else if (spec.material != null) {
                 recipe.setIngredient(e.getKey(), spec.material);
             }
         }
 
-        pendingRecipes.add(recipe);
-        registeredRecipeKeys.add(key);
+        out.add(recipe);
+        recipeKeysByHead.computeIfAbsent(head.id(), k -> new ArrayList<>()).add(key);
     }
 
-    private void collectShapelessRecipe(HeadDef head, CraftShapelessRecipeDef r, int index, int total) {
+    private void collectShapelessRecipe(HeadDef head, CraftShapelessRecipeDef r, int index, int total, List<Recipe> out) {
         String keyName = total == 1 ? "craft_" + head.id() : "craft_" + head.id() + "_" + index;
         NamespacedKey key = new NamespacedKey(this, keyName);
-        ItemStack result = makeHeadItem(r.id, r.amount);
+        ItemStack result = recipeItem(r.id, r.amount);
 
         ShapelessRecipe recipe = new ShapelessRecipe(key, result);
 
         for (IngredientSpec spec : r.ingredients) {
             if (spec.headId != null) {
-                ItemStack headItem = makeHeadItem(spec.headId, 1);
+                ItemStack headItem = recipeItem(spec.headId, 1);
                 recipe.addIngredient(new RecipeChoice.ExactChoice(headItem));
             } else if (spec.material != null) {
                 recipe.addIngredient(spec.material);
             }
         }
 
-        pendingRecipes.add(recipe);
-        registeredRecipeKeys.add(key);
+        out.add(recipe);
+        recipeKeysByHead.computeIfAbsent(head.id(), k -> new ArrayList<>()).add(key);
+    }
+
+    private void compileDropTables() {
+        for (HeadDef head : headsById.values()) {
+            dropTablesById.put(head.id(), DropTable.compile(head));
+        }
     }
 
     private void removeRecipesBatched(CommandSender sender, List<NamespacedKey> keys, Runnable onComplete) {
@@ -690,22 +1348,33 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         }.runTaskTimer(this, 0, 1);
     }
 
-    private void registerRecipesBatched(CommandSender sender, Runnable onComplete) {
-        if (pendingRecipes.isEmpty()) {
+    /**
+     * Add recipes a batch per tick, then run {@code onComplete}. Takes the recipes out of
+     * {@code recipes}, and stops early if a full reload replaces the catalog meanwhile.
+     */
+    private void registerRecipesBatched(CommandSender sender, List<Recipe> recipes, Runnable onComplete) {
+        if (recipes.isEmpty()) {
             if (onComplete != null) onComplete.run();
             return;
         }
+        final List<Recipe> batch = List.copyOf(recipes);
+        recipes.clear();
+        final int generation = catalogGeneration;
         final int BATCH_SIZE = 50;
-        final int totalRecipes = pendingRecipes.size();
+        final int totalRecipes = batch.size();
         final int PROGRESS_INTERVAL_TICKS = 100; // 5 seconds
         new BukkitRunnable() {
             int index = 0;
             int tickCount = 0;
             @Override
             public void run() {
+                if (generation != catalogGeneration) { // the newer load registers its own recipes
+                    cancel();
+                    return;
+                }
                 int end = Math.min(index + BATCH_SIZE, totalRecipes);
                 for (int i = index; i < end; i++) {
-                    Bukkit.addRecipe(pendingRecipes.get(i));
+                    Bukkit.addRecipe(batch.get(i));
                 }
                 index = end;
                 tickCount++;
@@ -718,7 +1387,6 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
                 if (index >= totalRecipes) {
                     cancel();
-                    pendingRecipes.clear();
                     if (onComplete != null) onComplete.run();
                 }
             }
@@ -736,7 +1404,7 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         Optional<String> textureIdOpt = textureIdFromSkullBlock(skull);
         if (textureIdOpt.isEmpty()) return;
 
-        String headId = headIdByTextureId.get(textureIdOpt.get());
+        String headId = headIdForTexture(textureIdOpt.get());
         if (headId == null) return;
 
         HeadDef def = headsById.get(headId);
@@ -750,7 +1418,6 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
         List<ItemStack> drops = computeDrops(def, silk, tool.getType());
         for (ItemStack drop : drops) {
-            if (drop == null || drop.getType() == Material.AIR) continue;
             block.getWorld().dropItemNaturally(block.getLocation().add(0.5, 0.5, 0.5), drop);
         }
 
@@ -762,6 +1429,106 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         player.playSound(player.getLocation(), Sound.BLOCK_WOOD_BREAK, 0.7f, 1.2f);
     }
 
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        breakHeadsInBatch(event.blockList(), true, event.getYield());
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        breakHeadsInBatch(event.blockList(), true, event.getYield());
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        breakHeadsInBatch(headsInPistonPath(event.getBlock(), event.getBlocks(), event.getDirection(), true), false, 1.0f);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        breakHeadsInBatch(headsInPistonPath(event.getBlock(), event.getBlocks(), event.getDirection(), false), false, 1.0f);
+    }
+
+    /**
+     * Heads a piston is about to destroy. Heads break instead of moving, so they're never in the
+     * moved list: they're the blocks one step ahead of a moved block, or right in front of the
+     * piston head when it extends into a head with nothing to push.
+     */
+    private static List<Block> headsInPistonPath(Block piston, List<Block> moved, BlockFace direction, boolean extending) {
+        Set<Block> heads = new LinkedHashSet<>();
+        if (moved.isEmpty()) {
+            if (extending) {
+                Block ahead = piston.getRelative(direction);
+                if (isHeadBlock(ahead.getType())) heads.add(ahead);
+            }
+            return new ArrayList<>(heads);
+        }
+        for (Block block : moved) {
+            Block ahead = block.getRelative(direction);
+            if (isHeadBlock(ahead.getType()) && !moved.contains(ahead)) heads.add(ahead);
+        }
+        return new ArrayList<>(heads);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        Block to = event.getToBlock();
+        if (!isHeadBlock(to.getType())) return;
+        breakHeadsInBatch(List.of(to), false, 1.0f);
+    }
+
+    /**
+     * Break every custom head in a list of blocks destroyed by something other than a player.
+     * Each block is resolved once, drop tables are applied, and light/candle cleanup runs
+     * in a single pass at the end. Heads are removed from the list when it is mutable
+     * (explosions) so vanilla doesn't drop a plain player head on top of ours.
+     */
+    private void breakHeadsInBatch(List<Block> blocks, boolean removeFromList, float yield) {
+        List<Block> brokenWithProperties = null;
+
+        Iterator<Block> it = blocks.iterator();
+        while (it.hasNext()) {
+            Block block = it.next();
+            HeadDef def = resolvePlacedHead(block);
+            if (def == null) continue;
+
+            if (removeFromList) it.remove();
+
+            if (yield >= 1.0f || ThreadLocalRandom.current().nextFloat() < yield) {
+                for (ItemStack drop : computeDrops(def, false, null)) {
+                    block.getWorld().dropItemNaturally(block.getLocation().add(0.5, 0.5, 0.5), drop);
+                }
+            }
+            block.setType(Material.AIR);
+
+            if (def.properties().contains(HeadProperty.GLOWING) || def.properties().contains(HeadProperty.LIGHTABLE)) {
+                if (brokenWithProperties == null) brokenWithProperties = new ArrayList<>();
+                brokenWithProperties.add(block);
+            }
+        }
+
+        if (brokenWithProperties != null && propertiesListener != null) {
+            propertiesListener.onHeadsBroken(brokenWithProperties);
+        }
+    }
+
+    private static boolean isHeadBlock(Material type) {
+        return type == Material.PLAYER_HEAD || type == Material.PLAYER_WALL_HEAD;
+    }
+
+    /** Resolve a placed skull block to its head definition, or null if it isn't a HeadSmith head. */
+    private HeadDef resolvePlacedHead(Block block) {
+        if (!isHeadBlock(block.getType())) return null;
+        // Non-snapshot state: we only read the profile, no need to copy the tile entity
+        if (!(block.getState(false) instanceof Skull skull)) return null;
+
+        String textureId = textureIdFromSkullBlock(skull).orElse(null);
+        if (textureId == null) return null;
+
+        String headId = headIdForTexture(textureId);
+        return headId != null ? headsById.get(headId) : null;
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPickBlock(PlayerPickBlockEvent event) {
         Block block = event.getBlock();
@@ -770,7 +1537,7 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         Optional<String> textureIdOpt = textureIdFromSkullBlock(skull);
         if (textureIdOpt.isEmpty()) return;
 
-        String headId = headIdByTextureId.get(textureIdOpt.get());
+        String headId = headIdForTexture(textureIdOpt.get());
         if (headId == null) return;
 
         event.setCancelled(true);
@@ -810,7 +1577,8 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof HeadSmithMenuHolder holder)) return;
+        HeadSmithMenuHolder holder = menuComposer.menuFor(event.getInventory());
+        if (holder == null) return;
 
         event.setCancelled(true);
         if (!(event.getWhoClicked() instanceof Player player)) return;
@@ -821,11 +1589,17 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         switch (holder.getMenuType()) {
             case CATALOG, SEARCH_RESULTS -> menus.handleCatalogClick(player, (CatalogMenuHolder) holder, slot, event.getClick());
             case HEAD_DETAIL -> menus.handleDetailClick(player, (HeadDetailMenuHolder) holder, slot);
-            case STONECUTTER_SELECT -> menus.handleStonecutterSelectClick(player, (StonecutterSelectMenuHolder) holder, slot);
+            case STONECUTTER_SELECT -> menus.handleStonecutterSelectClick(player, (StonecutterSelectMenuHolder) holder, slot, event.getClick());
             case TAG_LIST -> menus.handleTagListClick(player, (TagListMenuHolder) holder, slot);
+            case USED_IN -> menus.handleUsedInClick(player, (UsedInMenuHolder) holder, slot);
         }
     }
 
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        menuComposer.closed(event.getInventory());
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onStonecutterClick(InventoryClickEvent event) {
         if (event.getInventory().getType() != InventoryType.STONECUTTER) return;
@@ -839,7 +1613,7 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
             if (input == null || input.getType() != Material.PLAYER_HEAD) return;
 
             String inputHeadId = getPdcString(input, pdcHeadIdKey).orElse(null);
-            if (inputHeadId == null) return;
+            if (inputHeadId == null || hasNativeStonecutterRecipes(inputHeadId)) return;
 
             boolean hasRecipes = headStonecutterRecipes.stream()
                 .anyMatch(r -> r.inputHeadId().equals(inputHeadId));
@@ -851,7 +1625,12 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
             }
         }
 
-        Bukkit.getScheduler().runTask(this, () -> checkAndOpenStonecutterMenu(player, inv));
+        // Only a head going in or coming out of the input can change what we show
+        ItemStack hotbar = event.getHotbarButton() >= 0 ? player.getInventory().getItem(event.getHotbarButton()) : null;
+        if (isHead(inv.getInputItem()) || isHead(inv.getResult()) || isHead(event.getCursor())
+                || isHead(event.getCurrentItem()) || isHead(hotbar)) {
+            markStonecutterDirty(player, inv);
+        }
     }
 
     @EventHandler
@@ -860,8 +1639,38 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         if (!(event.getInventory() instanceof StonecutterInventory inv)) return;
         if (!(event.getWhoClicked() instanceof Player player)) return;
 
-        if (event.getRawSlots().contains(0)) {
-            Bukkit.getScheduler().runTask(this, () -> checkAndOpenStonecutterMenu(player, inv));
+        if (event.getRawSlots().contains(0) && isHead(event.getOldCursor())) {
+            markStonecutterDirty(player, inv);
+        }
+    }
+
+    private static boolean isHead(ItemStack item) {
+        return item != null && item.getType() == Material.PLAYER_HEAD;
+    }
+
+    /**
+     * The stonecutter's slots only settle after the click, so it's checked on the next tick.
+     * Clicks in the same tick share one check, and one task serves every open stonecutter.
+     */
+    private void markStonecutterDirty(Player player, StonecutterInventory inv) {
+        dirtyStonecutters.put(inv, player);
+        if (stonecutterTask == null) {
+            stonecutterTask = Bukkit.getScheduler().runTaskTimer(this, this::checkDirtyStonecutters, 1, 1);
+        }
+    }
+
+    private void checkDirtyStonecutters() {
+        if (dirtyStonecutters.isEmpty()) {
+            stonecutterTask.cancel();
+            stonecutterTask = null;
+            return;
+        }
+        List<Map.Entry<StonecutterInventory, Player>> dirty = new ArrayList<>(dirtyStonecutters.entrySet());
+        dirtyStonecutters.clear();
+        for (Map.Entry<StonecutterInventory, Player> e : dirty) {
+            Player player = e.getValue();
+            if (!player.isOnline() || player.getOpenInventory().getTopInventory() != e.getKey()) continue;
+            checkAndOpenStonecutterMenu(player, e.getKey());
         }
     }
 
@@ -877,6 +1686,16 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
             updateStonecutterResult(inv);
             return;
         }
+        if (hasNativeStonecutterRecipes(inputHeadId)) {
+            clearCustomStonecutterResult(inv);
+            HeadDef def = headsById.get(inputHeadId);
+            if (!headItemCache.matches(def, input, d -> HeadUtils.makeHeadItem(d, 1, pdcHeadIdKey, getLogger()))) {
+                // Same head by id, but made differently (renamed, older version, old texture):
+                // swap in the current item so the registered recipes match it
+                inv.setInputItem(makeHeadItem(def, input.getAmount()));
+            }
+            return;
+        }
 
         boolean hasRecipes = headStonecutterRecipes.stream()
             .anyMatch(r -> r.inputHeadId().equals(inputHeadId));
@@ -888,6 +1707,15 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
         }
     }
 
+    /** True if heads with this id are cut by recipes registered with the server. */
+    private boolean hasNativeStonecutterRecipes(String inputHeadId) {
+        if (!nativeHeadStonecutter || !headsById.containsKey(inputHeadId)) return false;
+        for (HeadStonecutterRecipe recipe : headStonecutterRecipes) {
+            if (recipe.inputHeadId().equals(inputHeadId)) return true;
+        }
+        return false;
+    }
+
     private void updateStonecutterResult(StonecutterInventory inv) {
         ItemStack input = inv.getInputItem();
         if (input == null || input.getType() != Material.PLAYER_HEAD) {
@@ -926,33 +1754,54 @@ public final class HeadSmithPlugin extends JavaPlugin implements Listener, TabCo
     }
 
     private void clearCustomStonecutterResult(StonecutterInventory inv) {
+        // Only our hint: a head in the result slot is a real recipe's output
         ItemStack currentResult = inv.getResult();
-        if (currentResult == null) return;
+        if (currentResult == null || currentResult.getType() != Material.STONECUTTER) return;
 
-        if (currentResult.getType() == Material.STONECUTTER || currentResult.getType() == Material.PLAYER_HEAD) {
-            if (getPdcString(currentResult, pdcHeadIdKey).isPresent()) {
-                inv.setResult(null);
-            }
+        if (getPdcString(currentResult, pdcHeadIdKey).filter("_stonecutter_hint"::equals).isPresent()) {
+            inv.setResult(null);
         }
     }
 
     // Helper methods
 
     private List<ItemStack> computeDrops(HeadDef def, boolean silkTouch, Material toolMaterial) {
-        Optional<ToolCategory> toolCat = ToolCategory.fromMaterial(toolMaterial);
+        DropTable table = dropTablesById.get(def.id());
+        if (table == null) {
+            table = DropTable.compile(def);
+            dropTablesById.put(def.id(), table);
+        }
+        return table.drops(silkTouch, ToolCategory.of(toolMaterial), this::makeHeadItem);
+    }
 
-        // Check explicit rules first (including catch-all)
-        for (DropRule rule : def.dropRules()) {
-            if (rule.matches(silkTouch, toolCat)) {
-                return rule.toDrops(this::makeHeadItem);
-            }
+    public ItemStack makeHeadItem(String headId, int amount) {
+        HeadDef def = headsById.get(headId);
+        if (def == null) {
+            return new ItemStack(Material.AIR);
         }
+        return makeHeadItem(def, amount);
+    }
 
-        // Implicit fallback: always drop itself
-        return List.of(makeHeadItem(def.id(), 1));
+    /** Build (or clone from the cache) the item for a definition. Safe to call off the main thread. */
+    ItemStack makeHeadItem(HeadDef def, int amount) {
+        ItemStack item = headItemCache.get(def, d -> HeadUtils.makeHeadItem(d, 1, pdcHeadIdKey, getLogger()));
+        item.setAmount(Math.max(1, amount));
+        return item;
     }
 
-    public ItemStack makeHeadItem(String headId, int amount) {
-        return HeadUtils.makeHeadItem(headsById.get(headId), amount, pdcHeadIdKey, getLogger());
+    /**
+     * Build a recipe item directly rather than through the head item cache: recipes keep their own
+     * copies, so caching them would only evict the templates that menus and drops reuse.
+     */
+    private ItemStack recipeItem(String headId, int amount) {
+        HeadDef def = headsById.get(headId);
+        if (def == null) {
+            return new ItemStack(Material.AIR);
+        }
+        return HeadUtils.makeHeadItem(def, Math.max(1, amount), pdcHeadIdKey, getLogger());
+    }
+
+    private String headIdForTexture(String textureId) {
+        return headIdByTextureId.get(TextureRef.ofId(textureId));
     }
 }
@@ -3,7 +3,6 @@ package anon.def9a2a4.headsmith;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.block.Skull;
@@ -19,9 +18,11 @@ import org.bukkit.profile.PlayerTextures;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 @FunctionalInterface
@@ -29,16 +30,71 @@ interface HeadIdResolver {
     Optional<String> resolve(ItemStack item);
 }
 
-record TextureInfo(String textureUrl, String textureId) {}
+/**
+ * Bounded LRU of fully built head items (profile, name, lore, PDC) keyed by head ID.
+ * Items are materialized on first use and handed out as clones, so heads nobody
+ * looks at never build a profile and the resident set stays bounded.
+ * Each template remembers the definition it was built from, so a caller still holding
+ * a replaced definition (e.g. a menu composed during a hot reload) can't poison the cache.
+ */
+final class HeadItemCache {
+    private record Template(HeadDef def, ItemStack item) {}
+
+    private final Map<String, Template> templates;
+
+    HeadItemCache(int maxSize) {
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
 
-final class HeadUtils {
+    /**
+     * Items are built outside the lock, so a menu thread building a page of heads never holds up
+     * the main thread. Two threads missing on the same head may both build it; the first one wins.
+     */
+    ItemStack get(HeadDef def, Function<HeadDef, ItemStack> builder) {
+        return template(def, builder).item().clone();
+    }
 
-    private HeadUtils() {}
+    /** True if the item is exactly what {@link #get} hands out for the head, ignoring the amount. */
+    boolean matches(HeadDef def, ItemStack item, Function<HeadDef, ItemStack> builder) {
+        return template(def, builder).item().isSimilar(item);
+    }
+
+    private Template template(HeadDef def, Function<HeadDef, ItemStack> builder) {
+        Template template;
+        synchronized (this) {
+            template = templates.get(def.id());
+        }
+        if (template == null || template.def() != def) {
+            Template built = new Template(def, builder.apply(def));
+            synchronized (this) {
+                template = templates.get(def.id());
+                if (template == null || template.def() != def) {
+                    template = built;
+                    templates.put(def.id(), template);
+                }
+            }
+        }
+        return template;
+    }
 
-    static String color(String s) {
-        return ChatColor.translateAlternateColorCodes('&', s);
+    synchronized void invalidate(String headId) {
+        templates.remove(headId);
     }
 
+    synchronized void clear() {
+        templates.clear();
+    }
+}
+
+final class HeadUtils {
+
+    private HeadUtils() {}
+
     static Optional<String> getPdcString(ItemStack item, NamespacedKey key) {
         if (item == null) return Optional.empty();
         ItemMeta meta = item.getItemMeta();
@@ -47,7 +103,7 @@ final class HeadUtils {
         return Optional.ofNullable(v);
     }
 
-    static Optional<TextureInfo> parseTextureBase64(String base64) {
+    static Optional<TextureRef> parseTextureBase64(String base64) {
         try {
             byte[] decoded = Base64.getDecoder().decode(base64);
             String json = new String(decoded, StandardCharsets.UTF_8);
@@ -55,8 +111,7 @@ final class HeadUtils {
             JsonObject textures = obj.getAsJsonObject("textures");
             JsonObject skin = textures.getAsJsonObject("SKIN");
             String url = skin.get("url").getAsString();
-            String textureId = textureIdFromSkinUrl(url).orElseThrow();
-            return Optional.of(new TextureInfo(url, textureId));
+            return Optional.of(TextureRef.ofUrl(url).orElseThrow().withBase64(base64));
         } catch (Exception ignored) {
             return Optional.empty();
         }
@@ -99,8 +154,8 @@ final class HeadUtils {
         return dflt;
     }
 
-    static void giveToInventoryOrDrop(Player player, ItemStack stack) {
-        Map<Integer, ItemStack> leftover = player.getInventory().addItem(stack);
+    static void giveToInventoryOrDrop(Player player, ItemStack... stacks) {
+        Map<Integer, ItemStack> leftover = player.getInventory().addItem(stacks);
         if (!leftover.isEmpty()) {
             for (ItemStack lf : leftover.values()) {
                 player.getWorld().dropItemNaturally(player.getLocation(), lf);
@@ -132,9 +187,10 @@ final class HeadUtils {
         }
         meta.setOwnerProfile(profile);
 
-        meta.setDisplayName(color(def.name()));
-        if (!def.lore().isEmpty()) {
-            meta.setLore(def.lore().stream().map(HeadUtils::color).toList());
+        // Legacy setters on purpose, see HeadText
+        meta.setDisplayName(def.text().legacyName());
+        if (!def.text().legacyLore().isEmpty()) {
+            meta.setLore(def.text().legacyLore());
         }
 
         meta.getPersistentDataContainer().set(pdcHeadIdKey, PersistentDataType.STRING, def.id());
@@ -143,7 +199,7 @@ final class HeadUtils {
     }
 
     static Optional<String> getHeadIdFromItem(ItemStack item, NamespacedKey pdcHeadIdKey,
-                                               Map<String, String> headIdByTextureId) {
+                                               Map<TextureRef, String> headIdByTextureId) {
         if (item == null || item.getType() != Material.PLAYER_HEAD) {
             return Optional.empty();
         }
@@ -169,6 +225,6 @@ final class HeadUtils {
         if (textureId == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(headIdByTextureId.get(textureId));
+        return Optional.ofNullable(headIdByTextureId.get(TextureRef.ofId(textureId)));
     }
 }
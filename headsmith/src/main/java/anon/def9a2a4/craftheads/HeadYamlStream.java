@@ -0,0 +1,237 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event-level reader for head files.
+ *
+ * <p>{@link org.bukkit.configuration.file.YamlConfiguration} builds the whole node tree and then
+ * copies it into sections before a single head can be processed. This walks the SnakeYAML event
+ * stream instead and hands each entry of the top-level {@code heads:} mapping to the consumer as
+ * its own small section, so only one head is materialized at a time.
+ *
+ * <p>Anchored values have to be kept until the end of the file in case something aliases them,
+ * so a file may define at most {@value #MAX_ANCHORS} anchors. Merge keys ({@code <<: *base})
+ * are applied as in YAML 1.1: keys written in the mapping win over merged ones.
+ */
+final class HeadYamlStream {
+
+    @FunctionalInterface
+    interface HeadConsumer {
+        void accept(String headId, ConfigurationSection section);
+    }
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final int MAX_ANCHORS = 1024;
+
+    private final Iterator<Event> events;
+    private final Map<String, Object> anchors = new HashMap<>();
+
+    private HeadYamlStream(Iterator<Event> events) {
+        this.events = events;
+    }
+
+    /**
+     * Stream heads from a YAML document. Heads are handed over as they are read, so callers should
+     * collect them and only use them once this returns: any failure part way through the file,
+     * including one thrown by the consumer, is rethrown as a {@link YAMLException}.
+     *
+     * @return false if the document has no top-level {@code heads:} mapping
+     */
+    static boolean read(Reader reader, HeadConsumer consumer) {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE); // community packs easily exceed the 3MB default
+        Iterator<Event> events = new Yaml(options).parse(reader).iterator();
+        try {
+            return new HeadYamlStream(events).readDocument(consumer);
+        } catch (YAMLException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new YAMLException(String.valueOf(e.getMessage()), e);
+        }
+    }
+
+    private boolean readDocument(HeadConsumer consumer) {
+        Event root = nextNodeEvent();
+        if (!(root instanceof MappingStartEvent)) return false;
+
+        boolean foundHeads = false;
+        while (true) {
+            Event keyEvent = events.next();
+            if (keyEvent instanceof MappingEndEvent) break;
+
+            Event valueEvent = events.next();
+            if (keyEvent instanceof ScalarEvent key && key.getValue().equals("heads")
+                    && valueEvent instanceof MappingStartEvent) {
+                foundHeads = true;
+                readHeads(consumer);
+            } else {
+                skipValue(valueEvent);
+            }
+        }
+        return foundHeads;
+    }
+
+    private void readHeads(HeadConsumer consumer) {
+        while (true) {
+            Event keyEvent = events.next();
+            if (keyEvent instanceof MappingEndEvent) return;
+
+            String headId = String.valueOf(readValue(keyEvent));
+            Object value = readValue(events.next());
+            if (value instanceof Map<?, ?> map) {
+                consumer.accept(headId, new MemoryConfiguration().createSection(headId, map));
+            }
+        }
+    }
+
+    /** Advance past stream/document start markers to the first node event. */
+    private Event nextNodeEvent() {
+        while (events.hasNext()) {
+            Event e = events.next();
+            if (e instanceof NodeEvent) return e;
+        }
+        return null;
+    }
+
+    private Object readValue(Event first) {
+        Object value;
+        if (first instanceof ScalarEvent scalar) {
+            value = resolveScalar(scalar);
+        } else if (first instanceof SequenceStartEvent) {
+            List<Object> list = new ArrayList<>();
+            while (true) {
+                Event e = events.next();
+                if (e instanceof SequenceEndEvent) break;
+                list.add(readValue(e));
+            }
+            value = list;
+        } else if (first instanceof MappingStartEvent) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            List<Map<?, ?>> merged = new ArrayList<>();
+            while (true) {
+                Event e = events.next();
+                if (e instanceof MappingEndEvent) break;
+                if (isMergeKey(e)) {
+                    addMerge(merged, readValue(events.next()));
+                    continue;
+                }
+                String key = String.valueOf(readValue(e));
+                map.put(key, readValue(events.next()));
+            }
+            // Earlier merged mappings win over later ones, and explicit keys over all of them
+            for (Map<?, ?> m : merged) {
+                m.forEach((k, v) -> map.putIfAbsent(String.valueOf(k), v));
+            }
+            value = map;
+        } else if (first instanceof AliasEvent alias) {
+            if (!anchors.containsKey(alias.getAnchor())) {
+                throw new YAMLException("undefined alias *" + alias.getAnchor());
+            }
+            return anchors.get(alias.getAnchor());
+        } else {
+            return null;
+        }
+
+        if (first instanceof NodeEvent node && node.getAnchor() != null) {
+            if (anchors.size() >= MAX_ANCHORS && !anchors.containsKey(node.getAnchor())) {
+                throw new YAMLException("more than " + MAX_ANCHORS + " anchors");
+            }
+            anchors.put(node.getAnchor(), value);
+        }
+        return value;
+    }
+
+    private static boolean isMergeKey(Event e) {
+        return e instanceof ScalarEvent scalar && scalar.getValue().equals("<<")
+            && scalar.getImplicit().canOmitTagInPlainScalar();
+    }
+
+    private static void addMerge(List<Map<?, ?>> merged, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            merged.add(map);
+            return;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(o -> o instanceof Map)) {
+            for (Object o : list) merged.add((Map<?, ?>) o);
+            return;
+        }
+        throw new YAMLException("merge key << needs a mapping or a list of mappings");
+    }
+
+    /** Skip a value outside {@code heads:}, still reading anything anchored in it so heads can alias it. */
+    private void skipValue(Event first) {
+        if (first instanceof NodeEvent node && node.getAnchor() != null && !(first instanceof AliasEvent)) {
+            readValue(first);
+            return;
+        }
+        if (!(first instanceof MappingStartEvent) && !(first instanceof SequenceStartEvent)) return;
+        int depth = 1;
+        while (depth > 0) {
+            Event e = events.next();
+            if (e instanceof NodeEvent node && node.getAnchor() != null && !(e instanceof AliasEvent)) {
+                readValue(e); // consumes the whole anchored node
+            } else if (e instanceof MappingStartEvent || e instanceof SequenceStartEvent) {
+                depth++;
+            } else if (e instanceof MappingEndEvent || e instanceof SequenceEndEvent) {
+                depth--;
+            }
+        }
+    }
+
+    /** Resolve plain scalars to the same types Bukkit's YAML loader would produce. */
+    private static Object resolveScalar(ScalarEvent scalar) {
+        String value = scalar.getValue();
+        if (!scalar.getImplicit().canOmitTagInPlainScalar()) return value; // quoted or explicitly tagged
+
+        Tag tag = RESOLVER.resolve(NodeId.scalar, value, true);
+        if (Tag.NULL.equals(tag)) return null;
+        if (Tag.BOOL.equals(tag)) {
+            String lower = value.toLowerCase();
+            return lower.equals("true") || lower.equals("yes") || lower.equals("on");
+        }
+        if (Tag.INT.equals(tag)) {
+            String digits = value.replace("_", "");
+            try {
+                return Integer.parseInt(digits);
+            } catch (NumberFormatException e) {
+                try {
+                    return Long.parseLong(digits);
+                } catch (NumberFormatException ignored) {
+                    return value;
+                }
+            }
+        }
+        if (Tag.FLOAT.equals(tag)) {
+            try {
+                return Double.parseDouble(value.replace("_", ""));
+            } catch (NumberFormatException ignored) {
+                return value;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,178 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/** A menu ready to show: its holder, title and all 54 slots. */
+record ComposedMenu(HeadSmithMenuHolder holder, String title, ItemStack[] items) {}
+
+/**
+ * Builds menu contents on worker threads and opens them on the main thread. Composing a page
+ * (filtering, head items with profiles, lore) never touches the world, so only
+ * {@code createInventory} and {@code openInventory} are left for the main thread.
+ *
+ * <p>Each request gets a ticket. If the player asks for another menu before the first one is
+ * ready, the older result is thrown away instead of flashing open.
+ *
+ * <p>Requests are also coalesced per player: the first in a tick is started right away, later
+ * ones in the same tick replace each other and only the last is started on the next tick. A
+ * player spam-clicking page arrows therefore costs at most one menu per tick.
+ */
+final class MenuComposer {
+    private static final int THREADS = 2;
+
+    private final Plugin plugin;
+    private final ExecutorService executor;
+    private final AtomicLong tickets = new AtomicLong();
+    private final Map<UUID, Long> latest = new ConcurrentHashMap<>();
+
+    // Main thread only
+    private final Set<UUID> startedThisTick = new HashSet<>();
+    private final Map<UUID, Supplier<ComposedMenu>> deferred = new LinkedHashMap<>();
+    private final Map<Inventory, HeadSmithMenuHolder> shown = new IdentityHashMap<>(); // open menus, until closed
+    private BukkitTask tickTask;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder coalesced = new LongAdder(); // replaced by a later request before being built
+    private final LongAdder discarded = new LongAdder(); // built, but a later request had arrived
+
+    MenuComposer(Plugin plugin) {
+        this.plugin = plugin;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread thread = new Thread(r, "HeadSmith-MenuComposer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Compose a menu off the main thread and open it for the player on a following tick. */
+    void open(Player player, Supplier<ComposedMenu> compose) {
+        UUID playerId = player.getUniqueId();
+        if (startedThisTick.add(playerId)) {
+            start(playerId, compose);
+        } else {
+            if (deferred.put(playerId, compose) != null) coalesced.increment();
+            latest.remove(playerId); // whatever is being built now is already out of date
+        }
+        if (tickTask == null) {
+            tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::nextTick, 1, 1);
+        }
+    }
+
+    private void nextTick() {
+        startedThisTick.clear();
+        if (deferred.isEmpty()) {
+            tickTask.cancel();
+            tickTask = null;
+            return;
+        }
+        deferred.forEach((playerId, compose) -> {
+            startedThisTick.add(playerId);
+            start(playerId, compose);
+        });
+        deferred.clear();
+    }
+
+    private void start(UUID playerId, Supplier<ComposedMenu> compose) {
+        long ticket = tickets.incrementAndGet();
+        latest.put(playerId, ticket);
+        try {
+            executor.execute(() -> {
+                if (!isLatest(playerId, ticket)) { // superseded before we started
+                    coalesced.increment();
+                    return;
+                }
+                ComposedMenu menu;
+                try {
+                    menu = compose.get();
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to build menu", e);
+                    latest.remove(playerId, ticket);
+                    return;
+                }
+                Bukkit.getScheduler().runTask(plugin, () -> show(playerId, ticket, menu));
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private boolean isLatest(UUID playerId, long ticket) {
+        Long current = latest.get(playerId);
+        return current != null && current == ticket;
+    }
+
+    private void show(UUID playerId, long ticket, ComposedMenu menu) {
+        if (!latest.remove(playerId, ticket)) { // stale, a newer menu is on its way
+            discarded.increment();
+            return;
+        }
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null || !player.isOnline()) return;
+
+        Inventory inv = Bukkit.createInventory(menu.holder(), menu.items().length, menu.title());
+        menu.holder().setInventory(inv);
+        inv.setContents(menu.items());
+        shown.put(inv, menu.holder());
+        player.openInventory(inv);
+        if (player.getOpenInventory().getTopInventory() != inv) {
+            shown.remove(inv); // the open was cancelled, so no close event will remove it
+            return;
+        }
+        opened.increment();
+    }
+
+    /**
+     * The menu shown in this inventory, or null for any other inventory. Unlike
+     * {@code getHolder()} this never snapshots a block, so it's cheap enough for every click.
+     */
+    HeadSmithMenuHolder menuFor(Inventory inventory) {
+        return shown.isEmpty() ? null : shown.get(inventory);
+    }
+
+    void closed(Inventory inventory) {
+        shown.remove(inventory);
+    }
+
+    long openedMenus() { return opened.sum(); }
+    long coalescedRequests() { return coalesced.sum(); }
+    long discardedMenus() { return discarded.sum(); }
+
+    /** Forget any menu in flight for the player, e.g. because they closed the current one. */
+    void cancel(Player player) {
+        latest.remove(player.getUniqueId());
+        deferred.remove(player.getUniqueId());
+    }
+
+    void shutdown() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        executor.shutdownNow();
+        latest.clear();
+        deferred.clear();
+        shown.clear();
+    }
+}
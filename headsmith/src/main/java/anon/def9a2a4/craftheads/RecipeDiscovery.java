@@ -0,0 +1,229 @@
+package anon.def9a2a4.headsmith;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/** How HeadSmith recipes get into players' recipe books. */
+enum DiscoveryMode {
+    /** Leave recipe books alone. */
+    NONE,
+    /** Every HeadSmith recipe, on join. */
+    ALL,
+    /** Recipes for heads with one of the configured tags (or a child tag), on join. */
+    TAGS,
+    /** Recipes that use an item, once the player has or crafts that item. */
+    INGREDIENTS;
+
+    static DiscoveryMode parse(String value, Logger logger) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown recipe-discovery mode '" + value + "', using none");
+            return NONE;
+        }
+    }
+}
+
+/**
+ * Unlocks HeadSmith recipes in players' recipe books. Each player gets one
+ * {@code discoverRecipes} call for everything owed to them, and queued players are worked off a
+ * few per tick so a mass join after a restart doesn't land in a single tick.
+ */
+final class RecipeDiscovery implements Listener, Runnable {
+    private static final long TICK_BUDGET_NANOS = 2_000_000; // 2ms of each tick
+
+    private final Plugin plugin;
+    private final Function<ItemStack, Optional<String>> headIdOf;
+    private final Map<UUID, Set<NamespacedKey>> pending = new LinkedHashMap<>();
+
+    private DiscoveryMode mode = DiscoveryMode.NONE;
+    private List<NamespacedKey> joinKeys = List.of();
+    private Map<Material, List<NamespacedKey>> keysByMaterial = Map.of();
+    private Map<String, List<NamespacedKey>> keysByHead = Map.of();
+    private BukkitTask task;
+
+    RecipeDiscovery(Plugin plugin, Function<ItemStack, Optional<String>> headIdOf) {
+        this.plugin = plugin;
+        this.headIdOf = headIdOf;
+    }
+
+    /**
+     * Rebuild the key lists for a new catalog.
+     *
+     * @param recipeKeysByHead registered recipe keys per output head
+     */
+    void configure(DiscoveryMode mode, Collection<String> tags, Collection<HeadDef> heads,
+                   Map<String, List<NamespacedKey>> recipeKeysByHead, UsageIndex usage) {
+        this.mode = mode;
+        joinKeys = List.of();
+        keysByMaterial = Map.of();
+        keysByHead = Map.of();
+
+        switch (mode) {
+            case ALL -> {
+                List<NamespacedKey> keys = new ArrayList<>();
+                recipeKeysByHead.values().forEach(keys::addAll);
+                joinKeys = List.copyOf(keys);
+            }
+            case TAGS -> {
+                List<NamespacedKey> keys = new ArrayList<>();
+                for (HeadDef head : heads) {
+                    if (hasAnyTag(head, tags)) {
+                        keys.addAll(recipeKeysByHead.getOrDefault(head.id(), List.of()));
+                    }
+                }
+                joinKeys = List.copyOf(keys);
+            }
+            case INGREDIENTS -> {
+                // Unlock at head granularity: having an ingredient unlocks every recipe of the
+                // heads that use it
+                Map<Material, List<NamespacedKey>> byMaterial = new EnumMap<>(Material.class);
+                Map<String, List<NamespacedKey>> byHead = new HashMap<>();
+                for (Material material : Material.values()) {
+                    List<NamespacedKey> keys = keysFor(usage.usesOf(new IngredientSpec(material, null)), recipeKeysByHead);
+                    if (!keys.isEmpty()) byMaterial.put(material, keys);
+                }
+                for (HeadDef head : heads) {
+                    List<NamespacedKey> keys = keysFor(usage.usesOf(new IngredientSpec(null, head.id())), recipeKeysByHead);
+                    if (!keys.isEmpty()) byHead.put(head.id(), keys);
+                }
+                keysByMaterial = byMaterial;
+                keysByHead = byHead;
+            }
+            case NONE -> {
+            }
+        }
+        pending.clear();
+    }
+
+    private static boolean hasAnyTag(HeadDef head, Collection<String> tags) {
+        for (String headTag : head.tags()) {
+            for (String tag : tags) {
+                if (headTag.equals(tag) || headTag.startsWith(tag + "/")) return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<NamespacedKey> keysFor(List<String> headIds, Map<String, List<NamespacedKey>> recipeKeysByHead) {
+        List<NamespacedKey> keys = new ArrayList<>();
+        for (String id : headIds) {
+            keys.addAll(recipeKeysByHead.getOrDefault(id, List.of()));
+        }
+        return List.copyOf(keys);
+    }
+
+    /** Queue everyone online, e.g. after the recipes were reloaded. */
+    void enqueueOnline() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            enqueueJoin(player);
+        }
+    }
+
+    void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        pending.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        enqueueJoin(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        pending.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCraft(CraftItemEvent event) {
+        if (mode != DiscoveryMode.INGREDIENTS) return;
+        Recipe recipe = event.getRecipe();
+        if (recipe == null) return;
+        enqueue(event.getWhoClicked(), keysForItem(recipe.getResult()));
+    }
+
+    private void enqueueJoin(Player player) {
+        switch (mode) {
+            case ALL, TAGS -> enqueue(player, joinKeys);
+            case INGREDIENTS -> {
+                Set<NamespacedKey> keys = new LinkedHashSet<>();
+                for (ItemStack item : player.getInventory().getStorageContents()) {
+                    keys.addAll(keysForItem(item));
+                }
+                enqueue(player, keys);
+            }
+            case NONE -> {
+            }
+        }
+    }
+
+    private List<NamespacedKey> keysForItem(ItemStack item) {
+        if (item == null || item.getType().isAir()) return List.of();
+        if (item.getType() == Material.PLAYER_HEAD) {
+            Optional<String> headId = headIdOf.apply(item);
+            if (headId.isPresent()) return keysByHead.getOrDefault(headId.get(), List.of());
+        }
+        return keysByMaterial.getOrDefault(item.getType(), List.of());
+    }
+
+    private void enqueue(HumanEntity player, Collection<NamespacedKey> keys) {
+        if (keys.isEmpty()) return;
+        pending.computeIfAbsent(player.getUniqueId(), k -> new LinkedHashSet<>()).addAll(keys);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1, 1);
+        }
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+        Iterator<Map.Entry<UUID, Set<NamespacedKey>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Set<NamespacedKey>> e = it.next();
+            it.remove();
+            Player player = Bukkit.getPlayer(e.getKey());
+            if (player != null) {
+                // Already-known recipes are skipped by the server, so only new ones are sent
+                player.discoverRecipes(e.getValue());
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+        if (pending.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package anon.def9a2a4.headsmith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The tag hierarchy, any number of levels deep: "custom/packs/medieval/doors" is a node under
+ * "custom/packs/medieval", and so on up to a root-level "custom".
+ *
+ * <p>Building the tree also fixes the order heads are numbered in: a depth-first walk that puts
+ * each head under its first tag (the file it came from). Every head filed under a node's subtree
+ * therefore sits in one contiguous ordinal range. Heads reach other nodes through their extra
+ * tags too, so counts and representative heads cover all tags and are worked out up front.
+ */
+final class TagTree {
+
+    static final class Node {
+        final String path;  // "" for the root
+        final String name;  // last path segment
+        final Node parent;
+        private final List<Node> children = new ArrayList<>();
+        private int headCount;     // heads with exactly this tag
+        private int subtreeCount;  // heads with this tag or one below it
+        private int start;         // ordinals [start, end) are filed under this subtree
+        private int end;
+        private String firstHeadId;
+
+        private Node(String path, String name, Node parent) {
+            this.path = path;
+            this.name = name;
+            this.parent = parent;
+        }
+
+        List<Node> children() { return children; }
+        boolean hasChildren() { return !children.isEmpty(); }
+        int headCount() { return headCount; }
+        int subtreeCount() { return subtreeCount; }
+        int start() { return start; }
+        int end() { return end; }
+
+        /** True if the range holds every head in the subtree, so it can stand in for a tag lookup. */
+        boolean isContiguous() { return end - start == subtreeCount; }
+
+        /** The first head in the subtree, in catalog order, to show for it. */
+        Optional<String> firstHeadId() { return Optional.ofNullable(firstHeadId); }
+    }
+
+    private final Node root = new Node("", "", null);
+    private final Map<String, Node> byPath = new HashMap<>();
+    private final List<HeadDef> ordered;
+
+    /**
+     * @param first root-level tags to list first, in this order
+     * @param last  root-level tags to list last, in this order
+     */
+    TagTree(Collection<HeadDef> heads, List<String> first, List<String> last) {
+        Map<Node, List<HeadDef>> filed = new LinkedHashMap<>();
+        List<HeadDef> untagged = new ArrayList<>();
+        for (HeadDef head : heads) {
+            Node primary = null;
+            for (String tag : head.tags()) {
+                Node node = nodeFor(tag);
+                if (primary == null) primary = node;
+            }
+            if (primary != null) {
+                filed.computeIfAbsent(primary, n -> new ArrayList<>()).add(head);
+            } else {
+                untagged.add(head);
+            }
+        }
+
+        sortChildren(root);
+        for (int i = first.size() - 1; i >= 0; i--) {
+            moveChild(first.get(i), 0);
+        }
+        for (String tag : last) {
+            moveChild(tag, -1);
+        }
+
+        List<HeadDef> out = new ArrayList<>(heads.size());
+        number(root, filed, out);
+        out.addAll(untagged);
+        root.end = out.size();
+        ordered = Collections.unmodifiableList(out);
+
+        // Counts and representatives over every tag, now that the order is known
+        Set<Node> seen = new HashSet<>();
+        for (HeadDef head : ordered) {
+            seen.clear();
+            for (String tag : head.tags()) {
+                Node node = byPath.get(tag);
+                node.headCount++;
+                for (; node != root && seen.add(node); node = node.parent) {
+                    node.subtreeCount++;
+                    if (node.firstHeadId == null) node.firstHeadId = head.id();
+                }
+            }
+        }
+        root.subtreeCount = ordered.size();
+    }
+
+    private Node nodeFor(String path) {
+        Node node = byPath.get(path);
+        if (node != null) return node;
+        int slash = path.lastIndexOf('/');
+        Node parent = slash > 0 ? nodeFor(path.substring(0, slash)) : root;
+        node = new Node(path, path.substring(slash + 1), parent);
+        parent.children.add(node);
+        byPath.put(path, node);
+        return node;
+    }
+
+    private static void sortChildren(Node node) {
+        node.children.sort((a, b) -> a.name.compareToIgnoreCase(b.name));
+        for (Node child : node.children) sortChildren(child);
+    }
+
+    private void moveChild(String name, int index) {
+        Node node = byPath.get(name);
+        if (node == null || node.parent != root) return;
+        root.children.remove(node);
+        root.children.add(index < 0 ? root.children.size() : index, node);
+    }
+
+    private static void number(Node node, Map<Node, List<HeadDef>> filed, List<HeadDef> out) {
+        node.start = out.size();
+        out.addAll(filed.getOrDefault(node, List.of()));
+        for (Node child : node.children) number(child, filed, out);
+        node.end = out.size();
+    }
+
+    Node root() {
+        return root;
+    }
+
+    Optional<Node> node(String path) {
+        return Optional.ofNullable(byPath.get(path));
+    }
+
+    /** Every head, in tree order. Ordinals are positions in this list. */
+    List<HeadDef> ordered() {
+        return ordered;
+    }
+
+    /** True if the tag is one of the given tags or sits anywhere below one of them. */
+    static boolean isWithin(String tag, Set<String> tags) {
+        for (int slash = tag.length(); slash > 0; slash = tag.lastIndexOf('/', slash - 1)) {
+            if (tags.contains(tag.substring(0, slash))) return true;
+        }
+        return false;
+    }
+}